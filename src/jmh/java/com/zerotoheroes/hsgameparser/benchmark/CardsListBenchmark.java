@@ -0,0 +1,64 @@
+package com.zerotoheroes.hsgameparser.benchmark;
+
+import com.zerotoheroes.hsgameparser.db.CardsList;
+import com.zerotoheroes.hsgameparser.db.DbCard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading the bundled cards, and looking cards up by id and by dbf id
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardsListBenchmark {
+
+	private CardsList cardsList;
+
+	private String[] cardIds;
+
+	private int[] dbfIds;
+
+	// Cycles through all the cards, so that lookups don't always hit the same entries
+	private int next;
+
+	@Setup
+	public void setup() throws Exception {
+		cardsList = CardsList.create();
+		List<DbCard> cards = cardsList.getDbCards();
+		cardIds = cards.stream().map(DbCard::getId).toArray(String[]::new);
+		dbfIds = cards.stream().mapToInt(DbCard::getDbfId).toArray();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public CardsList create() throws Exception {
+		return CardsList.create();
+	}
+
+	@Benchmark
+	public DbCard findDbCard() {
+		next = next + 1 == cardIds.length ? 0 : next + 1;
+		return cardsList.findDbCard(cardIds[next]);
+	}
+
+	@Benchmark
+	public DbCard dbCardFromDbfId() {
+		next = next + 1 == dbfIds.length ? 0 : next + 1;
+		return cardsList.dbCardFromDbfId(dbfIds[next]);
+	}
+}
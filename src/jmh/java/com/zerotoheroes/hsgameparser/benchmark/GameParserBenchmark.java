@@ -0,0 +1,48 @@
+package com.zerotoheroes.hsgameparser.benchmark;
+
+import com.zerotoheroes.hsgameparser.db.CardsListRegistry;
+import com.zerotoheroes.hsgameparser.metadata.GameMetaData;
+import com.zerotoheroes.hsgameparser.metadata.GameParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metadata extraction, from the XML and from an already built replay
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameParserBenchmark {
+
+	private GameParser gameParser;
+
+	@Setup
+	public void setup() {
+		gameParser = new GameParser(CardsListRegistry.bundled());
+		// Cards are loaded lazily, keep that out of the measurements
+		gameParser.getCards();
+	}
+
+	@Benchmark
+	public GameMetaData getMetaDataFromXml(ReplayFixture fixture) throws Exception {
+		return gameParser.getMetaData(fixture.replayXml, fixture.gameMode);
+	}
+
+	@Benchmark
+	public GameMetaData getMetaDataFromReplay(ReplayFixture fixture) throws Exception {
+		return gameParser.getMetaData(fixture.replay, fixture.gameMode);
+	}
+}
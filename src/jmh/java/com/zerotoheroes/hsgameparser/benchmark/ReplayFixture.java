@@ -0,0 +1,40 @@
+package com.zerotoheroes.hsgameparser.benchmark;
+
+import com.zerotoheroes.hsgameentities.replaydata.HearthstoneReplay;
+import com.zerotoheroes.hsgameparser.GameLoader;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+/**
+ * One of the test replays, loaded once: as raw XML for the streaming paths, and as a built replay
+ */
+@State(Scope.Benchmark)
+public class ReplayFixture {
+
+	@Param({
+			"bugparsing/battlegrounds.xml",
+			"bugparsing/bug_parsing_23576.xml",
+			"bugparsing/puzzle.xml",
+			"worgen otk 32 dmg.xml",
+			"class detection.xml" })
+	public String replayName;
+
+	public ByteBuffer replayXml;
+
+	public HearthstoneReplay replay;
+
+	public String gameMode;
+
+	@Setup
+	public void setup() throws Exception {
+		GameLoader gameLoader = new GameLoader();
+		replayXml = ByteBuffer.wrap(Files.readAllBytes(gameLoader.path(replayName)));
+		replay = gameLoader.load(replayName);
+		gameMode = replayName.contains("battlegrounds") ? "battlegrounds" : null;
+	}
+}
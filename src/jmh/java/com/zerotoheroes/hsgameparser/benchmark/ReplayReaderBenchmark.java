@@ -0,0 +1,42 @@
+package com.zerotoheroes.hsgameparser.benchmark;
+
+import com.zerotoheroes.hsgameparser.amazingplays.reader.ReplayReader;
+import com.zerotoheroes.hsgameparser.amazingplays.rules.RuleFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Highlights of the default rules, from the XML and from an already built replay
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayReaderBenchmark {
+
+	private final ReplayReader replayReader = new ReplayReader();
+
+	private final RuleFactory ruleFactory = new RuleFactory(30);
+
+	@Benchmark
+	public void readFromXml(ReplayFixture fixture, Blackhole blackhole) throws Exception {
+		replayReader.read(fixture.replayXml, ruleFactory.create(blackhole::consume));
+	}
+
+	@Benchmark
+	public void readFromReplay(ReplayFixture fixture, Blackhole blackhole) {
+		replayReader.read(fixture.replay, ruleFactory.create(blackhole::consume));
+	}
+}
@@ -0,0 +1,77 @@
+package com.zerotoheroes.hsgameparser.benchmark;
+
+import com.zerotoheroes.hsgameparser.SyntheticReplay;
+import com.zerotoheroes.hsgameparser.amazingplays.reader.ReplayReader;
+import com.zerotoheroes.hsgameparser.amazingplays.rules.RuleFactory;
+import com.zerotoheroes.hsgameparser.db.CardsListRegistry;
+import com.zerotoheroes.hsgameparser.metadata.GameMetaData;
+import com.zerotoheroes.hsgameparser.metadata.GameParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming generated replays from the size of the fixtures up to 100 times larger, to plot how
+ * parsing scales. Other shapes can be given on the command line, for instance
+ * {@code -p scale=10 -p tagChangesPerTurn=5000 -p actionDepth=20}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ScalingBenchmark {
+
+	@Param({ "1", "10", "100" })
+	public int scale;
+
+	@Param("1200")
+	public int tagChangesPerTurn;
+
+	@Param("3")
+	public int actionDepth;
+
+	private ByteBuffer replayXml;
+
+	private GameParser gameParser;
+
+	private final ReplayReader replayReader = new ReplayReader();
+
+	private final RuleFactory ruleFactory = new RuleFactory(30);
+
+	@Setup
+	public void setup() throws Exception {
+		replayXml = ByteBuffer.wrap(SyntheticReplay.builder()
+				.turns(30 * scale)
+				.entities(120 * scale)
+				.tagChangesPerTurn(tagChangesPerTurn)
+				.actionDepth(actionDepth)
+				.build()
+				.toXml());
+		gameParser = new GameParser(CardsListRegistry.bundled());
+		gameParser.getCards();
+	}
+
+	@Benchmark
+	public GameMetaData getMetaData() throws Exception {
+		return gameParser.getMetaData(replayXml, null);
+	}
+
+	@Benchmark
+	public void readHighlights(Blackhole blackhole) throws Exception {
+		replayReader.read(replayXml, ruleFactory.create(blackhole::consume));
+	}
+}
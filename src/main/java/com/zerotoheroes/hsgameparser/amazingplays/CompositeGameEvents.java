@@ -1,76 +1,122 @@
 package com.zerotoheroes.hsgameparser.amazingplays;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
 
+/**
+ * Notifies each event to the listeners, in order.
+ * <p>
+ * The listeners are taken when the composite is created, and sorted out by event: a listener is
+ * only called for the events of its {@link GameEvents#getInterests()} (for the rules, the ones they
+ * override). Notifying an event is then a loop over an array, without any allocation.
+ */
 public class CompositeGameEvents implements GameEvents {
-	private final List<GameEvents> listeners;
+
+	private final GameEvents[] gameStart;
+	private final GameEvents[] gameEnd;
+	private final GameEvents[] turnStart;
+	private final GameEvents[] turnEnd;
+	private final GameEvents[] minionSummoned;
+	private final GameEvents[] spellPlayed;
+	private final GameEvents[] healSelf;
+	private final GameEvents[] damageTaken;
+	private final GameEvents[] damageDealtToOpponent;
+
+	// Events with at least one listener
+	private final Set<GameEventType> interests = EnumSet.noneOf(GameEventType.class);
 
 	public CompositeGameEvents(List<GameEvents> listeners) {
-		this.listeners = listeners;
+		gameStart = listening(listeners, GameEventType.GAME_START);
+		gameEnd = listening(listeners, GameEventType.GAME_END);
+		turnStart = listening(listeners, GameEventType.TURN_START);
+		turnEnd = listening(listeners, GameEventType.TURN_END);
+		minionSummoned = listening(listeners, GameEventType.MINION_SUMMONED);
+		spellPlayed = listening(listeners, GameEventType.SPELL_PLAYED);
+		healSelf = listening(listeners, GameEventType.HEAL_SELF);
+		damageTaken = listening(listeners, GameEventType.DAMAGE_TAKEN);
+		damageDealtToOpponent = listening(listeners, GameEventType.DAMAGE_DEALT_TO_OPPONENT);
+	}
+
+	@Override
+	public Set<GameEventType> getInterests() {
+		return Collections.unmodifiableSet(interests);
 	}
 
 	@Override
 	public void gameStart() {
-		for (GameEvents listener : listeners) {
+		for (GameEvents listener : gameStart) {
 			listener.gameStart();
 		}
 	}
 
 	@Override
 	public void gameEnd() {
-		for (GameEvents listener : listeners) {
+		for (GameEvents listener : gameEnd) {
 			listener.gameEnd();
 		}
 	}
 
 	@Override
 	public void turnStart(int turnNumber) {
-		for (GameEvents listener : listeners) {
+		for (GameEvents listener : turnStart) {
 			listener.turnStart(turnNumber);
 		}
 	}
 
 	@Override
 	public void turnEnd() {
-		for (GameEvents listener : listeners) {
+		for (GameEvents listener : turnEnd) {
 			listener.turnEnd();
 		}
 	}
 
 	@Override
 	public void minionSummoned(String minionName) {
-		for (GameEvents listener : listeners) {
+		for (GameEvents listener : minionSummoned) {
 			listener.minionSummoned(minionName);
 		}
 	}
 
 	@Override
 	public void spellPlayed(String spellName) {
-		for (GameEvents listener : listeners) {
+		for (GameEvents listener : spellPlayed) {
 			listener.spellPlayed(spellName);
 		}
 	}
 
 	@Override
 	public void healSelf(int health) {
-		for (GameEvents listener : listeners) {
+		for (GameEvents listener : healSelf) {
 			listener.healSelf(health);
 		}
 	}
 
 	@Override
 	public void damageTaken(BaseEntity entity, int damage) {
-		for (GameEvents listener : listeners) {
+		for (GameEvents listener : damageTaken) {
 			listener.damageTaken(entity, damage);
 		}
 	}
 
 	@Override
 	public void damageDealtToOpponent(int damage) {
-		for (GameEvents listener : listeners) {
+		for (GameEvents listener : damageDealtToOpponent) {
 			listener.damageDealtToOpponent(damage);
 		}
 	}
+
+	// The listeners that need the event
+	private GameEvents[] listening(List<GameEvents> listeners, GameEventType event) {
+		GameEvents[] listening = listeners.stream()
+				.filter(listener -> listener.getInterests().contains(event))
+				.toArray(GameEvents[]::new);
+		if (listening.length > 0) {
+			interests.add(event);
+		}
+		return listening;
+	}
 }
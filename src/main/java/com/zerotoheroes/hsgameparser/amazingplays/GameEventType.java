@@ -0,0 +1,50 @@
+package com.zerotoheroes.hsgameparser.amazingplays;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+
+/**
+ * The callbacks of {@link GameEvents}, for the listeners to tell which ones they need
+ */
+public enum GameEventType {
+
+	GAME_START("gameStart"),
+	GAME_END("gameEnd"),
+	TURN_START("turnStart", int.class),
+	TURN_END("turnEnd"),
+	MINION_SUMMONED("minionSummoned", String.class),
+	SPELL_PLAYED("spellPlayed", String.class),
+	HEAL_SELF("healSelf", int.class),
+	DAMAGE_TAKEN("damageTaken", BaseEntity.class, int.class),
+	DAMAGE_DEALT_TO_OPPONENT("damageDealtToOpponent", int.class);
+
+	private final String callback;
+
+	private final Class<?>[] parameterTypes;
+
+	GameEventType(String callback, Class<?>... parameterTypes) {
+		this.callback = callback;
+		this.parameterTypes = parameterTypes;
+	}
+
+	/**
+	 * The events for which the listener class does something, i.e. doesn't keep the no-op it
+	 * inherits from the base class
+	 */
+	public static Set<GameEventType> overriddenIn(Class<? extends GameEvents> listenerClass, Class<?> baseClass) {
+		Set<GameEventType> types = EnumSet.noneOf(GameEventType.class);
+		for (GameEventType type : values()) {
+			try {
+				if (listenerClass.getMethod(type.callback, type.parameterTypes).getDeclaringClass() != baseClass) {
+					types.add(type);
+				}
+			}
+			catch (NoSuchMethodException e) {
+				throw new IllegalStateException("No " + type.callback + " callback on " + listenerClass, e);
+			}
+		}
+		return types;
+	}
+}
@@ -1,9 +1,20 @@
 package com.zerotoheroes.hsgameparser.amazingplays;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
 
 public interface GameEvents {
 
+	/**
+	 * The events this listener needs. The readers don't bother finding out about the others, so
+	 * the fewer events, the cheaper the replay.
+	 */
+	default Set<GameEventType> getInterests() {
+		return EnumSet.allOf(GameEventType.class);
+	}
+
 	void gameStart();
 
 	void gameEnd();
@@ -0,0 +1,208 @@
+package com.zerotoheroes.hsgameparser.amazingplays;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+
+import lombok.Getter;
+
+/**
+ * Measures a listener (typically a rule) while notifying it: how many times each event was
+ * notified, how long the listener took, and how much it allocated, see {@link RuleProfiler}.
+ * <p>
+ * The listener keeps its interests, so it is still only notified of the events it needs. Like the
+ * rules, a profiled listener is notified from a single thread at a time.
+ */
+public class ProfiledGameEvents implements GameEvents {
+
+	// Only HotSpot-like JVMs can tell how much a thread allocated
+	private static final boolean ALLOCATION_TRACKED = allocationTracked();
+
+	@Getter
+	private final GameEvents listener;
+
+	@Getter
+	private final String name;
+
+	// By event type
+	private final long[] calls = new long[GameEventType.values().length];
+	private final long[] nanos = new long[GameEventType.values().length];
+	private final long[] allocatedBytes = new long[GameEventType.values().length];
+
+	public ProfiledGameEvents(GameEvents listener) {
+		this(listener, listener.getClass().getSimpleName());
+	}
+
+	public ProfiledGameEvents(GameEvents listener, String name) {
+		this.listener = listener;
+		this.name = name;
+	}
+
+	/**
+	 * Whether the allocated bytes are measured on this JVM. They are all 0 otherwise.
+	 */
+	public static boolean isAllocationTracked() {
+		return ALLOCATION_TRACKED;
+	}
+
+	public long getCalls(GameEventType event) {
+		return calls[event.ordinal()];
+	}
+
+	public long getNanos(GameEventType event) {
+		return nanos[event.ordinal()];
+	}
+
+	public long getAllocatedBytes(GameEventType event) {
+		return allocatedBytes[event.ordinal()];
+	}
+
+	public long getTotalCalls() {
+		return sum(calls);
+	}
+
+	public long getTotalNanos() {
+		return sum(nanos);
+	}
+
+	public long getTotalAllocatedBytes() {
+		return sum(allocatedBytes);
+	}
+
+	@Override
+	public Set<GameEventType> getInterests() {
+		return listener.getInterests();
+	}
+
+	@Override
+	public void gameStart() {
+		long allocated = allocated();
+		long start = System.nanoTime();
+		listener.gameStart();
+		record(GameEventType.GAME_START, start, allocated);
+	}
+
+	@Override
+	public void gameEnd() {
+		long allocated = allocated();
+		long start = System.nanoTime();
+		listener.gameEnd();
+		record(GameEventType.GAME_END, start, allocated);
+	}
+
+	@Override
+	public void turnStart(int turnNumber) {
+		long allocated = allocated();
+		long start = System.nanoTime();
+		listener.turnStart(turnNumber);
+		record(GameEventType.TURN_START, start, allocated);
+	}
+
+	@Override
+	public void turnEnd() {
+		long allocated = allocated();
+		long start = System.nanoTime();
+		listener.turnEnd();
+		record(GameEventType.TURN_END, start, allocated);
+	}
+
+	@Override
+	public void minionSummoned(String minionName) {
+		long allocated = allocated();
+		long start = System.nanoTime();
+		listener.minionSummoned(minionName);
+		record(GameEventType.MINION_SUMMONED, start, allocated);
+	}
+
+	@Override
+	public void spellPlayed(String spellName) {
+		long allocated = allocated();
+		long start = System.nanoTime();
+		listener.spellPlayed(spellName);
+		record(GameEventType.SPELL_PLAYED, start, allocated);
+	}
+
+	@Override
+	public void healSelf(int health) {
+		long allocated = allocated();
+		long start = System.nanoTime();
+		listener.healSelf(health);
+		record(GameEventType.HEAL_SELF, start, allocated);
+	}
+
+	@Override
+	public void damageTaken(BaseEntity entity, int damage) {
+		long allocated = allocated();
+		long start = System.nanoTime();
+		listener.damageTaken(entity, damage);
+		record(GameEventType.DAMAGE_TAKEN, start, allocated);
+	}
+
+	@Override
+	public void damageDealtToOpponent(int damage) {
+		long allocated = allocated();
+		long start = System.nanoTime();
+		listener.damageDealtToOpponent(damage);
+		record(GameEventType.DAMAGE_DEALT_TO_OPPONENT, start, allocated);
+	}
+
+	private void record(GameEventType event, long start, long allocated) {
+		// Stop the clock before reading the allocations
+		long end = System.nanoTime();
+		int index = event.ordinal();
+		calls[index]++;
+		nanos[index] += end - start;
+		allocatedBytes[index] += allocated() - allocated;
+	}
+
+	private static long allocated() {
+		return ALLOCATION_TRACKED ? AllocationCounter.allocated() : 0;
+	}
+
+	private static long sum(long[] values) {
+		long sum = 0;
+		for (long value : values) {
+			sum += value;
+		}
+		return sum;
+	}
+
+	private static boolean allocationTracked() {
+		try {
+			return AllocationCounter.isSupported();
+		}
+		catch (LinkageError e) {
+			// Not a HotSpot-like JVM
+			return false;
+		}
+	}
+
+	/**
+	 * The only class referencing com.sun.management, so that a JVM without it fails when loading this
+	 * class, inside {@link #allocationTracked()}, rather than when loading ProfiledGameEvents
+	 */
+	private static final class AllocationCounter {
+
+		private static final com.sun.management.ThreadMXBean THREADS = tracker();
+
+		static boolean isSupported() {
+			return THREADS != null;
+		}
+
+		static long allocated() {
+			return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		private static com.sun.management.ThreadMXBean tracker() {
+			java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			if (threads instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean tracker = (com.sun.management.ThreadMXBean) threads;
+				if (tracker.isThreadAllocatedMemorySupported() && tracker.isThreadAllocatedMemoryEnabled()) {
+					return tracker;
+				}
+			}
+			return null;
+		}
+	}
+}
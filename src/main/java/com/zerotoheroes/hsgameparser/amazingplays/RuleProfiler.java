@@ -0,0 +1,56 @@
+package com.zerotoheroes.hsgameparser.amazingplays;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Profiles the rules of one replay, see {@link com.zerotoheroes.hsgameparser.amazingplays.rules.RuleFactory#create(GameHighlightListener, RuleProfiler)}:
+ * each rule is wrapped in a {@link ProfiledGameEvents}, and the profiles can be looked at, or
+ * dumped as a report, once the replay has been read. A slow rule is then easy to spot among the
+ * others.
+ */
+public class RuleProfiler {
+
+	private final List<ProfiledGameEvents> profiles = new ArrayList<>();
+
+	/**
+	 * The profiled rule, to be notified instead of the rule itself
+	 */
+	public ProfiledGameEvents profile(GameEvents rule) {
+		ProfiledGameEvents profiled = new ProfiledGameEvents(rule);
+		profiles.add(profiled);
+		return profiled;
+	}
+
+	/**
+	 * In the order the rules were profiled
+	 */
+	public List<ProfiledGameEvents> getProfiles() {
+		return Collections.unmodifiableList(profiles);
+	}
+
+	/**
+	 * One line per rule, slowest first, followed by the events it was notified of
+	 */
+	public String report() {
+		List<ProfiledGameEvents> slowestFirst = new ArrayList<>(profiles);
+		slowestFirst.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+		StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "%-32s %10s %12s %14s%n",
+				"rule", "calls", "time (us)", "allocated (B)"));
+		for (ProfiledGameEvents profile : slowestFirst) {
+			line(report, profile.getName(), profile.getTotalCalls(), profile.getTotalNanos(), profile.getTotalAllocatedBytes());
+			for (GameEventType event : GameEventType.values()) {
+				if (profile.getCalls(event) > 0) {
+					line(report, "  " + event, profile.getCalls(event), profile.getNanos(event), profile.getAllocatedBytes(event));
+				}
+			}
+		}
+		return report.toString();
+	}
+
+	private static void line(StringBuilder report, String name, long calls, long nanos, long allocatedBytes) {
+		report.append(String.format(Locale.ROOT, "%-32s %10d %12.1f %14d%n", name, calls, nanos / 1000.0, allocatedBytes));
+	}
+}
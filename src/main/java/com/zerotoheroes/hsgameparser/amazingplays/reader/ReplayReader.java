@@ -1,56 +1,120 @@
 package com.zerotoheroes.hsgameparser.amazingplays.reader;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLStreamException;
 
-import com.zerotoheroes.hsgameentities.replaydata.Game;
 import com.zerotoheroes.hsgameentities.replaydata.GameData;
-import com.zerotoheroes.hsgameentities.replaydata.GameHelper;
 import com.zerotoheroes.hsgameentities.replaydata.HearthstoneReplay;
-import com.zerotoheroes.hsgameentities.replaydata.gameactions.Action;
-import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
 import com.zerotoheroes.hsgameparser.amazingplays.GameEvents;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Reads replays and notifies the game events of what happens in them.
+ * <p>
+ * The reader itself keeps no state: everything about the replay being read lives in a session
+ * created for each read. A reader built without events can be shared by any number of threads,
+ * each read getting its own events (for instance from {@link com.zerotoheroes.hsgameparser.amazingplays.rules.RuleFactory#create}),
+ * since the rules keep track of the game they are notified of.
+ * <p>
+ * Only the game data the events need (see {@link GameEvents#getInterests()}) is decoded.
+ */
 @Slf4j
 public class ReplayReader {
 
-	private final GameHelper helper;
-
-	private final TagChangeReader tagChange;
+	// Only for the reads that don't give their own events
+	private final GameEvents events;
 
-	// private final GameEvents events;
+	public ReplayReader() {
+		this(null);
+	}
 
+	/**
+	 * The same events are notified for every replay, so such a reader can only read one replay at
+	 * a time
+	 */
 	public ReplayReader(GameEvents events) {
-		// this.events = events;
-		helper = new GameHelper();
-		tagChange = new TagChangeReader(events, helper);
+		this.events = events;
 	}
 
 	public void read(HearthstoneReplay replay) {
-		// read replay file and notify of turns/events etc.
-		if (replay.getGames() == null || replay.getGames().isEmpty()) { return; }
+		read(replay, defaultEvents());
+	}
 
+	public void read(HearthstoneReplay replay, GameEvents events) {
+		// read replay file and notify of turns/events etc.
 		// For now support only a single game
-		Game game = replay.getGames().get(0);
-		helper.setGame(game);
+		ReplaySession session = new ReplaySession(events);
+		session.streamReader().read(replay, session::read);
+	}
 
-		List<GameData> data = game.getData();
+	/**
+	 * Notifies the events as the replay XML is streamed, without building the whole replay first
+	 */
+	public void read(InputStream replayXml) throws XMLStreamException {
+		read(replayXml, defaultEvents());
+	}
 
-		for (GameData gameData : data) {
-			readData(gameData);
-		}
+	public void read(InputStream replayXml, GameEvents events) throws XMLStreamException {
+		ReplaySession session = new ReplaySession(events);
+		session.streamReader().read(replayXml, session::read);
 	}
 
-	private void readData(GameData gameData) {
-		if (gameData instanceof TagChange) {
-			tagChange.read((TagChange) gameData);
-		}
+	/**
+	 * Reads the replay file through a memory mapping
+	 */
+	public void read(Path replayFile) throws IOException, XMLStreamException {
+		read(replayFile, defaultEvents());
+	}
+
+	public void read(Path replayFile, GameEvents events) throws IOException, XMLStreamException {
+		ReplaySession session = new ReplaySession(events);
+		session.streamReader().read(replayFile, session::read);
+	}
+
+	public void read(FileChannel replayFile) throws IOException, XMLStreamException {
+		read(replayFile, defaultEvents());
+	}
+
+	public void read(FileChannel replayFile, GameEvents events) throws IOException, XMLStreamException {
+		ReplaySession session = new ReplaySession(events);
+		session.streamReader().read(replayFile, session::read);
+	}
+
+	/**
+	 * Reads the remaining bytes of the buffer, without moving its position
+	 */
+	public void read(ByteBuffer replayXml) throws XMLStreamException {
+		read(replayXml, defaultEvents());
+	}
+
+	public void read(ByteBuffer replayXml, GameEvents events) throws XMLStreamException {
+		ReplaySession session = new ReplaySession(events);
+		session.streamReader().read(replayXml, session::read);
+	}
+
+	/**
+	 * Starts following a game that is still being played: the events are notified as soon as the
+	 * game data given to the returned consumer, in game order, makes them happen
+	 */
+	public Consumer<GameData> startLiveGame() {
+		return startLiveGame(defaultEvents());
+	}
+
+	public Consumer<GameData> startLiveGame(GameEvents events) {
+		return new ReplaySession(events)::read;
+	}
 
-		if (gameData instanceof Action) {
-			for (GameData data : ((Action) gameData).getData()) {
-				readData(data);
-			}
+	private GameEvents defaultEvents() {
+		if (events == null) {
+			throw new IllegalStateException("No events configured for this reader, give them with each replay");
 		}
+		return events;
 	}
 }
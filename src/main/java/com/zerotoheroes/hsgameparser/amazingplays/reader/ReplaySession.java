@@ -0,0 +1,47 @@
+package com.zerotoheroes.hsgameparser.amazingplays.reader;
+
+import com.zerotoheroes.hsgameentities.replaydata.GameData;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
+import com.zerotoheroes.hsgameparser.amazingplays.GameEvents;
+import com.zerotoheroes.hsgameparser.replay.EntityStateIndex;
+import com.zerotoheroes.hsgameparser.replay.GameDataFilter;
+import com.zerotoheroes.hsgameparser.replay.ReplayStreamReader;
+
+/**
+ * Everything that is specific to the replay being read. A session reads a single replay, on a
+ * single thread, and is dropped afterwards.
+ */
+class ReplaySession {
+
+	// What the events need, the rest of the game data is ignored
+	private final GameDataFilter filter;
+
+	// Entities seen so far in the game, the events don't need any tag value
+	private final EntityStateIndex state = EntityStateIndex.tracking();
+
+	private final TagChangeReader tagChange;
+
+	ReplaySession(GameEvents events) {
+		filter = TagChangeReader.filter(events.getInterests());
+		tagChange = new TagChangeReader(events, state::getEntity);
+	}
+
+	/**
+	 * A stream reader that doesn't even decode the game data the session ignores
+	 */
+	ReplayStreamReader streamReader() {
+		return new ReplayStreamReader(filter);
+	}
+
+	void read(GameData gameData) {
+		if (!filter.accepts(gameData)) {
+			return;
+		}
+		if (filter.acceptsEntities()) {
+			state.read(gameData);
+		}
+		if (gameData instanceof TagChange) {
+			tagChange.read((TagChange) gameData);
+		}
+	}
+}
@@ -1,33 +1,83 @@
 package com.zerotoheroes.hsgameparser.amazingplays.reader;
 
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
 import com.zerotoheroes.hsgameentities.enums.GameTag;
 import com.zerotoheroes.hsgameentities.replaydata.GameHelper;
 import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
 import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
+import com.zerotoheroes.hsgameparser.amazingplays.GameEventType;
 import com.zerotoheroes.hsgameparser.amazingplays.GameEvents;
+import com.zerotoheroes.hsgameparser.replay.GameDataFilter;
 
-import lombok.Data;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-@Data
+@Getter
 @Slf4j
 public class TagChangeReader {
 
 	private final GameEvents events;
-	private final GameHelper helper;
+	// Entities by id
+	private final IntFunction<BaseEntity> entities;
+
+	// Events the listeners need, nothing is looked up for the others
+	private final boolean turnStart;
+	private final boolean damageTaken;
+	private final boolean gameEnd;
+
+	/**
+	 * @deprecated the entities don't have to come from a built game anymore, use
+	 *             {@link #TagChangeReader(GameEvents, IntFunction)}
+	 */
+	@Deprecated
+	public TagChangeReader(GameEvents events, GameHelper helper) {
+		// The game of the helper may only be set later on
+		this(events, id -> helper.getEntity(id));
+	}
+
+	public TagChangeReader(GameEvents events, IntFunction<BaseEntity> entities) {
+		this.events = events;
+		this.entities = entities;
+		Set<GameEventType> interests = events.getInterests();
+		this.turnStart = interests.contains(GameEventType.TURN_START);
+		this.damageTaken = interests.contains(GameEventType.DAMAGE_TAKEN);
+		this.gameEnd = interests.contains(GameEventType.GAME_END);
+	}
+
+	/**
+	 * The game data needed to notify these events: the changes of the tags they come from, and the
+	 * entities when damaged entities have to be known
+	 */
+	public static GameDataFilter filter(Set<GameEventType> interests) {
+		IntStream.Builder tags = IntStream.builder();
+		if (interests.contains(GameEventType.TURN_START)) {
+			tags.add(GameTag.TURN.getIntValue());
+		}
+		if (interests.contains(GameEventType.DAMAGE_TAKEN)) {
+			tags.add(GameTag.PREDAMAGE.getIntValue());
+		}
+		if (interests.contains(GameEventType.GAME_END)) {
+			tags.add(GameTag.GOLD_REWARD_STATE.getIntValue());
+		}
+		GameDataFilter filter = GameDataFilter.tagChanges(tags.build().toArray());
+		return interests.contains(GameEventType.DAMAGE_TAKEN) ? filter.withEntities() : filter;
+	}
 
 	public void read(TagChange data) {
 
 		// Start turn
-		if (data.getEntity() == 1 && data.getName() == GameTag.TURN.getIntValue()) {
+		if (turnStart && data.getEntity() == 1 && data.getName() == GameTag.TURN.getIntValue()) {
 			events.turnStart(data.getValue());
 		}
 
 		// PREDAMAGE is how much damage should be applied. This includes damage
 		// taken from the armor, while DAMAGE doesn't include armor loss
-		if (data.getName() == GameTag.PREDAMAGE.getIntValue()) {
+		if (damageTaken && data.getName() == GameTag.PREDAMAGE.getIntValue()) {
 			if (data.getValue() > 0 && data.getEntity() != 1) {
-				BaseEntity entity = helper.getEntity(data.getEntity());
+				BaseEntity entity = entities.apply(data.getEntity());
 				events.damageTaken(entity, data.getValue());
 			}
 		}
@@ -35,7 +85,7 @@ public class TagChangeReader {
 		// Some things still happen after the PLAYSTATE change to WON/LOST/TIED,
 		// so we need to use this
 		// Only raise a single gameEnd event
-		if (data.getName() == GameTag.GOLD_REWARD_STATE.getIntValue() && data.getEntity() == 2) {
+		if (gameEnd && data.getName() == GameTag.GOLD_REWARD_STATE.getIntValue() && data.getEntity() == 2) {
 			events.gameEnd();
 		}
 	}
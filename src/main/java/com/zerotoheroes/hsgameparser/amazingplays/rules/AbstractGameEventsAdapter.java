@@ -1,11 +1,26 @@
 package com.zerotoheroes.hsgameparser.amazingplays.rules;
 
+import java.util.Collections;
+import java.util.Set;
+
 import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+import com.zerotoheroes.hsgameparser.amazingplays.GameEventType;
 import com.zerotoheroes.hsgameparser.amazingplays.GameEvents;
 import com.zerotoheroes.hsgameparser.amazingplays.GameHighlight;
 import com.zerotoheroes.hsgameparser.amazingplays.GameHighlightListener;
 
 public abstract class AbstractGameEventsAdapter implements GameEvents {
+
+	// The events overridden by each rule class, looked up once per class
+	private static final ClassValue<Set<GameEventType>> INTERESTS = new ClassValue<Set<GameEventType>>() {
+		@Override
+		@SuppressWarnings("unchecked")
+		protected Set<GameEventType> computeValue(Class<?> type) {
+			return Collections.unmodifiableSet(GameEventType.overriddenIn(
+					(Class<? extends GameEvents>) type, AbstractGameEventsAdapter.class));
+		}
+	};
+
 	private final GameHighlightListener listener;
 
 	protected AbstractGameEventsAdapter(GameHighlightListener listener) {
@@ -16,6 +31,14 @@ public abstract class AbstractGameEventsAdapter implements GameEvents {
 		listener.notify(gameHighlight);
 	}
 
+	/**
+	 * The events the rule overrides
+	 */
+	@Override
+	public Set<GameEventType> getInterests() {
+		return INTERESTS.get(getClass());
+	}
+
 	@Override
 	public void gameStart() {
 
@@ -1,16 +1,13 @@
 package com.zerotoheroes.hsgameparser.amazingplays.rules;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
 import com.zerotoheroes.hsgameparser.amazingplays.GameHighlight;
 import com.zerotoheroes.hsgameparser.amazingplays.GameHighlightListener;
 
-import lombok.Data;
-
 public class MostDamageDealtRule extends AbstractGameEventsAdapter {
 
 	// Map to quickly access the TurnDamage of the current turn
@@ -38,8 +35,8 @@ public class MostDamageDealtRule extends AbstractGameEventsAdapter {
 	@Override
 	public void gameEnd() {
 		for (TurnDamage turnDamage : turnDamageMap) {
-			for (BaseEntity entity : turnDamage.getDamageTaken().keySet()) {
-				int damage = turnDamage.getDamageTaken().get(entity);
+			for (int i = 0; i < turnDamage.size; i++) {
+				int damage = turnDamage.damageTaken[i];
 				if (damage >= threshold) {
 					GameHighlight highlight = new GameHighlight(turnDamage.turnNumber, "high-damage-taken");
 					highlight.setData("" + damage);
@@ -51,16 +48,39 @@ public class MostDamageDealtRule extends AbstractGameEventsAdapter {
 
 	@Override
 	public void damageTaken(BaseEntity entity, int damage) {
-		int damageTaken = currentTurnDamage.getDamageTaken().getOrDefault(entity, 0);
-		damageTaken += damage;
-		currentTurnDamage.getDamageTaken().put(entity, damageTaken);
+		currentTurnDamage.add(entity == null ? -1 : entity.getId(), damage);
 	}
 
-	@Data
 	private static class TurnDamage {
 
 		private final int turnNumber;
 
-		private Map<BaseEntity, Integer> damageTaken = new HashMap<>();
+		// Damaged entity ids and their total damage, in the order they were first damaged. Only a
+		// handful of entities are damaged in a turn, so a scan beats hashing and boxing
+		private int[] entities = new int[8];
+
+		private int[] damageTaken = new int[8];
+
+		private int size;
+
+		TurnDamage(int turnNumber) {
+			this.turnNumber = turnNumber;
+		}
+
+		void add(int entity, int damage) {
+			for (int i = 0; i < size; i++) {
+				if (entities[i] == entity) {
+					damageTaken[i] += damage;
+					return;
+				}
+			}
+			if (size == entities.length) {
+				entities = Arrays.copyOf(entities, size * 2);
+				damageTaken = Arrays.copyOf(damageTaken, size * 2);
+			}
+			entities[size] = entity;
+			damageTaken[size] = damage;
+			size++;
+		}
 	}
 }
@@ -6,13 +6,43 @@ import java.util.List;
 import com.zerotoheroes.hsgameparser.amazingplays.CompositeGameEvents;
 import com.zerotoheroes.hsgameparser.amazingplays.GameEvents;
 import com.zerotoheroes.hsgameparser.amazingplays.GameHighlightListener;
+import com.zerotoheroes.hsgameparser.amazingplays.RuleProfiler;
 
+/**
+ * Configuration of the rules. The rules keep track of the game they are notified of, so a new set
+ * of rules is created for each game, while the factory can be shared.
+ */
 public class RuleFactory {
 
+    private final int damageThreshold;
+
+    public RuleFactory() {
+        this(0);
+    }
+
+    public RuleFactory(int damageThreshold) {
+        this.damageThreshold = damageThreshold;
+    }
+
     public GameEvents create(GameHighlightListener listener) {
+        return new CompositeGameEvents(rules(listener));
+    }
+
+    /**
+     * Same rules, each one measured by the profiler of the game
+     */
+    public GameEvents create(GameHighlightListener listener, RuleProfiler profiler) {
         List<GameEvents> events = new ArrayList<>();
-        events.add(new BiggestHealRule(listener));
-        events.add(new MostDamageDealtRule(listener));
+        for (GameEvents rule : rules(listener)) {
+            events.add(profiler.profile(rule));
+        }
         return new CompositeGameEvents(events);
     }
+
+    private List<GameEvents> rules(GameHighlightListener listener) {
+        List<GameEvents> events = new ArrayList<>();
+        events.add(new BiggestHealRule(listener));
+        events.add(new MostDamageDealtRule(listener).configure(damageThreshold));
+        return events;
+    }
 }
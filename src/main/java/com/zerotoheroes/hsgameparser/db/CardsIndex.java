@@ -0,0 +1,141 @@
+package com.zerotoheroes.hsgameparser.db;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Inverted indexes on the attributes of the cards, each mapping a value to the set of positions of
+ * the cards having it. String values are indexed lower-cased, except for the ids which are
+ * case-sensitive.
+ */
+class CardsIndex {
+
+	private final int size;
+	private final List<DbCard> dbCards;
+
+	// Ids sorted alphabetically, so that all the ids sharing a prefix are contiguous
+	private final SortedPositions byId;
+
+	private final Map<String, BitSet> byMechanic = new HashMap<>();
+	private final Map<String, BitSet> bySet = new HashMap<>();
+	private final Map<String, BitSet> byType = new HashMap<>();
+	private final Map<String, BitSet> byPlayerClass = new HashMap<>();
+	private final Map<String, BitSet> byRarity = new HashMap<>();
+	private final Map<Integer, BitSet> byCost = new HashMap<>();
+	private final BitSet collectible = new BitSet();
+
+	// Only needed by text queries, and much more expensive to build than the other indexes
+	private volatile CardsTextIndex text;
+
+	CardsIndex(List<DbCard> dbCards) {
+		this.size = dbCards.size();
+		this.dbCards = dbCards;
+		String[] ids = new String[size];
+		for (int i = 0; i < size; i++) {
+			DbCard card = dbCards.get(i);
+			ids[i] = card.getId();
+			if (card.getMechanics() != null) {
+				for (String mechanic : card.getMechanics()) {
+					add(byMechanic, mechanic, i);
+				}
+			}
+			add(bySet, card.getSet(), i);
+			add(byType, card.getType(), i);
+			add(byPlayerClass, card.getPlayerClass(), i);
+			add(byRarity, card.getRarity(), i);
+			byCost.computeIfAbsent(card.getCost(), cost -> new BitSet()).set(i);
+			collectible.set(i, card.isCollectible());
+		}
+		byId = new SortedPositions(size, Comparator.comparing(i -> ids[i], Comparator.nullsFirst(Comparator.naturalOrder())));
+	}
+
+	int size() {
+		return size;
+	}
+
+	DbCard card(int position) {
+		return dbCards.get(position);
+	}
+
+	BitSet idStartingWith(String prefix) {
+		return byId.searchAll(i -> {
+			String id = dbCards.get(i).getId();
+			if (id == null) {
+				return 1;
+			}
+			return id.startsWith(prefix) ? 0 : prefix.compareTo(id);
+		});
+	}
+
+	BitSet mechanic(String mechanic) {
+		return get(byMechanic, mechanic);
+	}
+
+	BitSet set(Collection<String> sets) {
+		return get(bySet, sets);
+	}
+
+	BitSet type(Collection<String> types) {
+		return get(byType, types);
+	}
+
+	BitSet playerClass(Collection<String> playerClasses) {
+		return get(byPlayerClass, playerClasses);
+	}
+
+	BitSet rarity(Collection<String> rarities) {
+		return get(byRarity, rarities);
+	}
+
+	BitSet cost(int minCost, int maxCost) {
+		BitSet result = new BitSet();
+		for (Map.Entry<Integer, BitSet> entry : byCost.entrySet()) {
+			if (entry.getKey() >= minCost && entry.getKey() <= maxCost) {
+				result.or(entry.getValue());
+			}
+		}
+		return result;
+	}
+
+	BitSet collectible() {
+		return collectible;
+	}
+
+	CardsTextIndex text() {
+		CardsTextIndex result = text;
+		if (result == null) {
+			synchronized (this) {
+				result = text;
+				if (result == null) {
+					result = new CardsTextIndex(dbCards);
+					text = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	private static void add(Map<String, BitSet> index, String value, int position) {
+		if (value != null) {
+			index.computeIfAbsent(value.toLowerCase(Locale.ROOT), key -> new BitSet()).set(position);
+		}
+	}
+
+	private static BitSet get(Map<String, BitSet> index, String value) {
+		BitSet positions = value == null ? null : index.get(value.toLowerCase(Locale.ROOT));
+		return positions == null ? new BitSet() : positions;
+	}
+
+	private static BitSet get(Map<String, BitSet> index, Collection<String> values) {
+		BitSet result = new BitSet();
+		for (String value : values) {
+			result.or(get(index, value));
+		}
+		return result;
+	}
+}
@@ -1,32 +1,154 @@
 package com.zerotoheroes.hsgameparser.db;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.TypeFactory;
-import org.json.simple.parser.JSONParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+@Slf4j
 public class CardsList implements ICardsList {
 
-	private List<DbCard> dbCards = new ArrayList<>();
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final ObjectReader CARD_READER = MAPPER.readerFor(DbCard.class);
+
+	private final List<DbCard> dbCards;
+
+	// Indexes are built once at load time, and never modified afterwards
+	private final Map<String, DbCard> cardsById;
+	private final Map<String, DbCard> cardsByLowerCaseId;
+	private final Map<Integer, DbCard> cardsByDbfId;
+
+	// Only built when first queried
+	private volatile CardsIndex index;
+
+	/**
+	 * No cards at all. The cards can't be added afterwards: use one of the create methods to load
+	 * them.
+	 */
+	public CardsList() {
+		this(Collections.emptyList());
+	}
+
+	CardsList(List<DbCard> dbCards) {
+		this.dbCards = Collections.unmodifiableList(dbCards);
+		Map<String, DbCard> byId = new HashMap<>(dbCards.size() * 2);
+		Map<String, DbCard> byLowerCaseId = new HashMap<>(dbCards.size() * 2);
+		Map<Integer, DbCard> byDbfId = new HashMap<>(dbCards.size() * 2);
+		for (DbCard dbCard : dbCards) {
+			// Keep the first card for each key, like a linear search would
+			if (dbCard.getId() != null) {
+				byId.putIfAbsent(dbCard.getId(), dbCard);
+				byLowerCaseId.putIfAbsent(dbCard.getId().toLowerCase(Locale.ROOT), dbCard);
+			}
+			byDbfId.putIfAbsent(dbCard.getDbfId(), dbCard);
+		}
+		this.cardsById = Collections.unmodifiableMap(byId);
+		this.cardsByLowerCaseId = Collections.unmodifiableMap(byLowerCaseId);
+		this.cardsByDbfId = Collections.unmodifiableMap(byDbfId);
+	}
 
 	public static CardsList create() throws Exception {
-		CardsList instance = new CardsList();
-		JSONParser parser = new JSONParser();
-		Reader reader = new BufferedReader(
-				new InputStreamReader(CardsList.class.getResourceAsStream("cards.json"), "UTF-8"));
-		String cardsString = ((org.json.simple.JSONArray) parser.parse(reader)).toJSONString();
+		return create(card -> true);
+	}
+
+	/**
+	 * Only keeps the cards accepted by the filter (e.g. collectible ones), the others are dropped
+	 * as soon as they are read.
+	 */
+	public static CardsList create(Predicate<DbCard> filter) throws Exception {
+		try (InputStream stream = openBundledCards()) {
+			return new CardsList(readCards(stream, filter));
+		}
+	}
+
+	public static CardsList create(Path cardsFile) throws IOException {
+		try (InputStream stream = Files.newInputStream(cardsFile)) {
+			return new CardsList(readCards(stream, card -> true));
+		}
+	}
+
+	/**
+	 * Loads the bundled cards from a binary snapshot. The snapshot is (re)built from cards.json when
+	 * it is missing or was built from another version of cards.json.
+	 */
+	public static CardsList createFromSnapshot(Path snapshotFile) throws IOException {
+		return createFromSnapshot(CardsList::openBundledCards, snapshotFile);
+	}
 
-		ObjectMapper mapper = new ObjectMapper();
+	/**
+	 * Same as {@link #createFromSnapshot(Path)}, for a cards file on disk
+	 */
+	public static CardsList createFromSnapshot(Path cardsFile, Path snapshotFile) throws IOException {
+		return createFromSnapshot(() -> Files.newInputStream(cardsFile), snapshotFile);
+	}
+
+	private static CardsList createFromSnapshot(CardsSource source, Path snapshotFile) throws IOException {
+		long checksum;
+		try (InputStream stream = source.open()) {
+			checksum = CardsSnapshot.checksum(stream);
+		}
+		List<DbCard> dbCards = CardsSnapshot.read(snapshotFile, checksum);
+		if (dbCards == null) {
+			try (InputStream stream = source.open()) {
+				dbCards = readCards(stream, card -> true);
+			}
+			try {
+				CardsSnapshot.write(dbCards, checksum, snapshotFile);
+			}
+			catch (IOException e) {
+				log.warn("could not write cards snapshot " + snapshotFile, e);
+			}
+		}
+		return new CardsList(dbCards);
+	}
+
+	static InputStream openBundledCards() throws IOException {
+		InputStream stream = CardsList.class.getResourceAsStream("cards.json");
+		if (stream == null) {
+			throw new FileNotFoundException("cards.json not found in the classpath");
+		}
+		return stream;
+	}
+
+	static List<DbCard> readCards(InputStream stream, Predicate<DbCard> filter) throws IOException {
+		List<DbCard> dbCards = new ArrayList<>();
+		readCards(stream, filter, dbCards::add);
+		return dbCards;
+	}
 
-		instance.dbCards = mapper.readValue(cardsString,
-				TypeFactory.defaultInstance().constructCollectionType(List.class, DbCard.class));
+	// Streams the cards array one card at a time, so the whole json is never held in memory
+	static void readCards(InputStream stream, Predicate<DbCard> filter, Consumer<DbCard> consumer) throws IOException {
+		try (JsonParser parser = MAPPER.getFactory().createParser(stream)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				throw new JsonParseException(parser, "cards.json should contain an array of cards");
+			}
+			while (parser.nextToken() == JsonToken.START_OBJECT) {
+				DbCard dbCard = CARD_READER.readValue(parser);
+				if (filter.test(dbCard)) {
+					consumer.accept(dbCard);
+				}
+			}
+		}
+	}
 
-		return instance;
+	private interface CardsSource {
+		InputStream open() throws IOException;
 	}
 
 	@Override
@@ -36,12 +158,30 @@ public class CardsList implements ICardsList {
 
 	@Override
 	public DbCard findDbCard(String cardId) {
-		DbCard dbCard = dbCards.stream().filter(c -> c.getId().equals(cardId)).findFirst().orElse(null);
-		return dbCard;
+		return cardId == null ? null : cardsById.get(cardId);
+	}
+
+	@Override
+	public DbCard findDbCardIgnoreCase(String cardId) {
+		return cardId == null ? null : cardsByLowerCaseId.get(cardId.toLowerCase(Locale.ROOT));
 	}
 
 	@Override
 	public DbCard dbCardFromDbfId(int dbfId) {
-		return dbCards.stream().filter(c -> c.getDbfId() == dbfId).findFirst().orElse(null);
+		return cardsByDbfId.get(dbfId);
+	}
+
+	public CardsQuery query() {
+		CardsIndex result = index;
+		if (result == null) {
+			synchronized (this) {
+				result = index;
+				if (result == null) {
+					result = new CardsIndex(dbCards);
+					index = result;
+				}
+			}
+		}
+		return new CardsQuery(result);
 	}
 }
@@ -0,0 +1,134 @@
+package com.zerotoheroes.hsgameparser.db;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds a {@link CardsList} that is loaded once, on first use, and can be shared by every thread.
+ * <p>
+ * When the registry points to a cards file on disk, {@link #refresh()} picks up a new version of
+ * that file. Nothing calls it on its own: either call it when a new file is dropped in, or have it
+ * polled with {@link #refreshEvery}. The new list is fully built before it replaces the old one,
+ * so readers always get a complete list (either the old one or the new one).
+ */
+@Slf4j
+public class CardsListRegistry {
+
+	private static final CardsListRegistry BUNDLED = new CardsListRegistry(null);
+
+	// null means the cards.json bundled in the classpath
+	private final Path cardsFile;
+
+	private volatile Snapshot current;
+
+	public CardsListRegistry(Path cardsFile) {
+		this.cardsFile = cardsFile;
+	}
+
+	/**
+	 * The registry for the cards.json shipped with the parser
+	 */
+	public static CardsListRegistry bundled() {
+		return BUNDLED;
+	}
+
+	public CardsList get() {
+		Snapshot snapshot = current;
+		if (snapshot == null) {
+			synchronized (this) {
+				snapshot = current;
+				if (snapshot == null) {
+					snapshot = load();
+					current = snapshot;
+				}
+			}
+		}
+		return snapshot.cardsList;
+	}
+
+	/**
+	 * Reloads the cards if the cards file changed since it was last loaded
+	 */
+	public CardsList refresh() {
+		if (cardsFile == null || current == null) {
+			return get();
+		}
+		synchronized (this) {
+			try {
+				FileTime lastModified = lastModified();
+				if (!Objects.equals(lastModified, current.lastModified)) {
+					log.info("cards file " + cardsFile + " changed, reloading");
+					current = load();
+				}
+			}
+			catch (IllegalStateException e) {
+				// Probably being replaced or still being written, keep the current cards and try
+				// again later
+				log.warn("could not reload cards, keeping the previous version", e);
+			}
+			return current.cardsList;
+		}
+	}
+
+	/**
+	 * Refreshes the cards on the given scheduler, waiting the period between two refreshes, until
+	 * the returned future is cancelled
+	 */
+	public ScheduledFuture<?> refreshEvery(ScheduledExecutorService scheduler, long period, TimeUnit unit) {
+		return scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				refresh();
+			}
+			catch (RuntimeException e) {
+				// The cards have never been loaded, or couldn't be: don't stop the polling
+				log.warn("could not refresh cards", e);
+			}
+		}, period, period, unit);
+	}
+
+	/**
+	 * Unconditionally reloads the cards
+	 */
+	public synchronized CardsList reload() {
+		current = load();
+		return current.cardsList;
+	}
+
+	private Snapshot load() {
+		try {
+			if (cardsFile == null) {
+				return new Snapshot(CardsList.create(), null);
+			}
+			// Read the timestamp first, so that a file changed while being loaded gets reloaded
+			FileTime lastModified = lastModified();
+			return new Snapshot(CardsList.create(cardsFile), lastModified);
+		}
+		catch (Exception e) {
+			throw new IllegalStateException("Could not load cards from " + (cardsFile == null ? "classpath" : cardsFile), e);
+		}
+	}
+
+	private FileTime lastModified() {
+		try {
+			return Files.getLastModifiedTime(cardsFile);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not access " + cardsFile, e);
+		}
+	}
+
+	@RequiredArgsConstructor
+	private static class Snapshot {
+		private final CardsList cardsList;
+		private final FileTime lastModified;
+	}
+}
@@ -0,0 +1,174 @@
+package com.zerotoheroes.hsgameparser.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Selects cards by intersecting the indexes of {@link CardsList} instead of scanning all the cards.
+ * Ids are matched as is, like {@link CardsList#findDbCard(String)} does, while the other string
+ * criteria ignore case. Anything that isn't indexed can still be expressed with
+ * {@link #filter(Predicate)}, which is only evaluated on the cards matching the indexed criteria.
+ * <pre>
+ * List&lt;DbCard&gt; secrets = cardsList.query()
+ *         .mechanic("SECRET")
+ *         .collectible()
+ *         .list();
+ * </pre>
+ */
+public class CardsQuery {
+
+	private final CardsIndex index;
+
+	// null until the first criterion, meaning all the cards
+	private BitSet matching;
+
+	private Predicate<DbCard> filter;
+
+	CardsQuery(CardsIndex index) {
+		this.index = index;
+	}
+
+	public CardsQuery idStartingWith(String prefix) {
+		return and(index.idStartingWith(prefix));
+	}
+
+	public CardsQuery mechanic(String mechanic) {
+		return and(index.mechanic(mechanic));
+	}
+
+	public CardsQuery withoutMechanic(String mechanic) {
+		all().andNot(index.mechanic(mechanic));
+		return this;
+	}
+
+	public CardsQuery set(String... sets) {
+		return and(index.set(Arrays.asList(sets)));
+	}
+
+	public CardsQuery type(String... types) {
+		return and(index.type(Arrays.asList(types)));
+	}
+
+	public CardsQuery playerClass(String... playerClasses) {
+		return and(index.playerClass(Arrays.asList(playerClasses)));
+	}
+
+	public CardsQuery rarity(String... rarities) {
+		return and(index.rarity(Arrays.asList(rarities)));
+	}
+
+	public CardsQuery cost(int cost) {
+		return cost(cost, cost);
+	}
+
+	public CardsQuery cost(int minCost, int maxCost) {
+		return and(index.cost(minCost, maxCost));
+	}
+
+	public CardsQuery collectible() {
+		return and(index.collectible());
+	}
+
+	/**
+	 * Cards whose text contains the given whole word
+	 */
+	public CardsQuery textWord(String word) {
+		return and(index.text().text().word(word));
+	}
+
+	public CardsQuery textWordStartingWith(String prefix) {
+		return and(index.text().text().wordStartingWith(prefix));
+	}
+
+	/**
+	 * Cards whose text contains the given string, once formatting tags and placeholders are removed
+	 */
+	public CardsQuery textContaining(String substring) {
+		return and(index.text().text().containing(substring));
+	}
+
+	/**
+	 * Cards whose text has between minCount and maxCount words, words being split the same way as
+	 * for {@link #textWord(String)}
+	 */
+	public CardsQuery textWordCount(int minCount, int maxCount) {
+		return and(index.text().textWordCount(minCount, maxCount));
+	}
+
+	public CardsQuery nameWord(String word) {
+		return and(index.text().name().word(word));
+	}
+
+	public CardsQuery nameContaining(String substring) {
+		return and(index.text().name().containing(substring));
+	}
+
+	/**
+	 * Cards whose name contains all the given letters (a-z)
+	 */
+	public CardsQuery nameWithLetters(String letters) {
+		return and(index.text().nameLetters(letters, true));
+	}
+
+	/**
+	 * Cards whose name contains none of the given letters (a-z)
+	 */
+	public CardsQuery nameWithoutLetters(String letters) {
+		return and(index.text().nameLetters(letters, false));
+	}
+
+	public CardsQuery filter(Predicate<DbCard> predicate) {
+		filter = filter == null ? predicate : filter.and(predicate);
+		return this;
+	}
+
+	/**
+	 * The matching cards, in the order of the cards list
+	 */
+	public List<DbCard> list() {
+		List<DbCard> result = new ArrayList<>();
+		BitSet positions = positions();
+		for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+			DbCard card = index.card(i);
+			if (filter == null || filter.test(card)) {
+				result.add(card);
+			}
+		}
+		return result;
+	}
+
+	public Stream<DbCard> stream() {
+		return list().stream();
+	}
+
+	public int count() {
+		return filter == null ? positions().cardinality() : list().size();
+	}
+
+	private CardsQuery and(BitSet positions) {
+		if (matching == null) {
+			// The indexes are shared, never modify them
+			matching = (BitSet) positions.clone();
+		}
+		else {
+			matching.and(positions);
+		}
+		return this;
+	}
+
+	private BitSet all() {
+		if (matching == null) {
+			matching = new BitSet(index.size());
+			matching.set(0, index.size());
+		}
+		return matching;
+	}
+
+	private BitSet positions() {
+		return matching == null ? all() : matching;
+	}
+}
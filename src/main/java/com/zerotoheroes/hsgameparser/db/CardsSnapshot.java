@@ -0,0 +1,326 @@
+package com.zerotoheroes.hsgameparser.db;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of the cards, so they can be loaded without parsing cards.json.
+ * <p>
+ * The snapshot records the checksum of the cards.json it was built from, and is considered stale
+ * as soon as that checksum doesn't match anymore. Layout (big endian):
+ * <pre>
+ * header    magic, version, checksum (long), card count, mechanics count
+ * records   one fixed size record per card, see the RECORD_* offsets
+ * mechanics string references, each card pointing to a range of them
+ * strings   int length + UTF-8 bytes. Strings are deduplicated, and referenced by absolute
+ *           offset in the file (-1 for null)
+ * </pre>
+ * Fixed size records make it possible to read a single card without decoding the others.
+ */
+@Slf4j
+public class CardsSnapshot {
+
+	static final int MAGIC = 0x48534344; // HSCD
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 24;
+	static final int HEADER_CHECKSUM = 8;
+	static final int HEADER_CARD_COUNT = 16;
+	static final int HEADER_MECHANICS_COUNT = 20;
+
+	static final int RECORD_DBF_ID = 0;
+	static final int RECORD_COST = 4;
+	static final int RECORD_ATTACK = 8;
+	static final int RECORD_HEALTH = 12;
+	static final int RECORD_FLAGS = 16;
+	static final int RECORD_ID = 20;
+	static final int RECORD_NAME = 24;
+	static final int RECORD_TEXT = 28;
+	static final int RECORD_PLAYER_CLASS = 32;
+	static final int RECORD_TYPE = 36;
+	static final int RECORD_RARITY = 40;
+	static final int RECORD_SET = 44;
+	static final int RECORD_MECHANICS_START = 48;
+	static final int RECORD_MECHANICS_COUNT = 52;
+	static final int RECORD_SIZE = 56;
+
+	static final int FLAG_COLLECTIBLE = 1;
+	static final int FLAG_HAS_MECHANICS = 2;
+
+	/**
+	 * Builds a snapshot from the command line, for instance at build time:
+	 * <code>CardsSnapshot path/to/cards.json path/to/cards.snapshot</code>
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("usage: CardsSnapshot <cards.json> <snapshot>");
+			System.exit(1);
+		}
+		Path cardsFile = Paths.get(args[0]);
+		long checksum;
+		try (InputStream stream = Files.newInputStream(cardsFile)) {
+			checksum = checksum(stream);
+		}
+		List<DbCard> cards;
+		try (InputStream stream = Files.newInputStream(cardsFile)) {
+			cards = CardsList.readCards(stream, card -> true);
+		}
+		write(cards, checksum, Paths.get(args[1]));
+		log.info("wrote " + cards.size() + " cards to " + args[1]);
+	}
+
+	public static long checksum(InputStream stream) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[64 * 1024];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			crc.update(buffer, 0, read);
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Writes the snapshot to a temporary file first, so that readers never see a half written one
+	 */
+	public static void write(List<DbCard> cards, long checksum, Path snapshotFile) throws IOException {
+		StringTable strings = new StringTable();
+		int mechanicsCount = 0;
+		for (DbCard card : cards) {
+			for (String value : Arrays.asList(card.getId(), card.getName(), card.getText(), card.getPlayerClass(),
+					card.getType(), card.getRarity(), card.getSet())) {
+				strings.add(value);
+			}
+			if (card.getMechanics() != null) {
+				for (String mechanic : card.getMechanics()) {
+					strings.add(mechanic);
+				}
+				mechanicsCount += card.getMechanics().size();
+			}
+		}
+		strings.start = HEADER_SIZE + cards.size() * RECORD_SIZE + mechanicsCount * 4;
+
+		Path directory = snapshotFile.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporaryFile = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(checksum);
+				out.writeInt(cards.size());
+				out.writeInt(mechanicsCount);
+
+				int mechanicsIndex = 0;
+				for (DbCard card : cards) {
+					int mechanics = card.getMechanics() == null ? 0 : card.getMechanics().size();
+					out.writeInt(card.getDbfId());
+					out.writeInt(card.getCost());
+					out.writeInt(card.getAttack());
+					out.writeInt(card.getHealth());
+					out.writeInt((card.isCollectible() ? FLAG_COLLECTIBLE : 0)
+							| (card.getMechanics() != null ? FLAG_HAS_MECHANICS : 0));
+					out.writeInt(strings.reference(card.getId()));
+					out.writeInt(strings.reference(card.getName()));
+					out.writeInt(strings.reference(card.getText()));
+					out.writeInt(strings.reference(card.getPlayerClass()));
+					out.writeInt(strings.reference(card.getType()));
+					out.writeInt(strings.reference(card.getRarity()));
+					out.writeInt(strings.reference(card.getSet()));
+					out.writeInt(mechanicsIndex);
+					out.writeInt(mechanics);
+					mechanicsIndex += mechanics;
+				}
+				for (DbCard card : cards) {
+					if (card.getMechanics() != null) {
+						for (String mechanic : card.getMechanics()) {
+							out.writeInt(strings.reference(mechanic));
+						}
+					}
+				}
+				for (String value : strings.offsets.keySet()) {
+					byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+				}
+			}
+			try {
+				// Temporary files are only readable by their owner, while snapshots are meant to be shared
+				Files.setPosixFilePermissions(temporaryFile, PosixFilePermissions.fromString("rw-r--r--"));
+			}
+			catch (UnsupportedOperationException e) {
+				// Not a posix file system
+			}
+			try {
+				Files.move(temporaryFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+	/**
+	 * Returns the cards of the snapshot, or null if it is missing, was built from another
+	 * cards.json or can't be read
+	 */
+	public static List<DbCard> read(Path snapshotFile, long expectedChecksum) throws IOException {
+		if (!Files.isRegularFile(snapshotFile)) {
+			return null;
+		}
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+			buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+				// Keep reading
+			}
+			buffer.flip();
+		}
+		if (!isValid(buffer, expectedChecksum)) {
+			log.info("snapshot " + snapshotFile + " is stale, ignoring it");
+			return null;
+		}
+		try {
+			int cardCount = buffer.getInt(HEADER_CARD_COUNT);
+			List<DbCard> cards = new ArrayList<>(cardCount);
+			// Strings are shared in the snapshot, keep them shared once decoded
+			Map<Integer, String> strings = new HashMap<>();
+			for (int i = 0; i < cardCount; i++) {
+				cards.add(decode(buffer, i, strings));
+			}
+			return cards;
+		}
+		catch (RuntimeException e) {
+			log.warn("could not read snapshot " + snapshotFile + ", ignoring it", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Whether the snapshot exists and was built from the cards with the given checksum
+	 */
+	public static boolean isUpToDate(Path snapshotFile, long expectedChecksum) throws IOException {
+		if (!Files.isRegularFile(snapshotFile)) {
+			return false;
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+			while (header.hasRemaining() && channel.read(header) != -1) {
+				// Keep reading
+			}
+		}
+		header.flip();
+		return isValid(header, expectedChecksum);
+	}
+
+	static boolean isValid(ByteBuffer buffer, long expectedChecksum) {
+		return hasValidHeader(buffer) && buffer.getLong(HEADER_CHECKSUM) == expectedChecksum;
+	}
+
+	static boolean hasValidHeader(ByteBuffer buffer) {
+		return buffer.limit() >= HEADER_SIZE
+				&& buffer.getInt(0) == MAGIC
+				&& buffer.getInt(4) == VERSION;
+	}
+
+	static DbCard decode(ByteBuffer buffer, int index, Map<Integer, String> strings) {
+		int record = recordOffset(index);
+		DbCard card = new DbCard();
+		card.setDbfId(buffer.getInt(record + RECORD_DBF_ID));
+		card.setCost(buffer.getInt(record + RECORD_COST));
+		card.setAttack(buffer.getInt(record + RECORD_ATTACK));
+		card.setHealth(buffer.getInt(record + RECORD_HEALTH));
+		card.setCollectible((buffer.getInt(record + RECORD_FLAGS) & FLAG_COLLECTIBLE) != 0);
+		card.setId(string(buffer, buffer.getInt(record + RECORD_ID), strings));
+		card.setName(string(buffer, buffer.getInt(record + RECORD_NAME), strings));
+		card.setText(string(buffer, buffer.getInt(record + RECORD_TEXT), strings));
+		card.setPlayerClass(string(buffer, buffer.getInt(record + RECORD_PLAYER_CLASS), strings));
+		card.setType(string(buffer, buffer.getInt(record + RECORD_TYPE), strings));
+		card.setRarity(string(buffer, buffer.getInt(record + RECORD_RARITY), strings));
+		card.setSet(string(buffer, buffer.getInt(record + RECORD_SET), strings));
+		card.setMechanics(mechanics(buffer, index, strings));
+		return card;
+	}
+
+	static int recordOffset(int index) {
+		return HEADER_SIZE + index * RECORD_SIZE;
+	}
+
+	static List<String> mechanics(ByteBuffer buffer, int index, Map<Integer, String> strings) {
+		int record = recordOffset(index);
+		if ((buffer.getInt(record + RECORD_FLAGS) & FLAG_HAS_MECHANICS) == 0) {
+			return null;
+		}
+		int mechanicsSection = recordOffset(buffer.getInt(HEADER_CARD_COUNT));
+		int start = buffer.getInt(record + RECORD_MECHANICS_START);
+		int count = buffer.getInt(record + RECORD_MECHANICS_COUNT);
+		List<String> mechanics = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			mechanics.add(string(buffer, buffer.getInt(mechanicsSection + (start + i) * 4), strings));
+		}
+		return mechanics;
+	}
+
+	// The cache is optional
+	static String string(ByteBuffer buffer, int offset, Map<Integer, String> cache) {
+		if (offset < 0) {
+			return null;
+		}
+		if (cache != null) {
+			String cached = cache.get(offset);
+			if (cached == null) {
+				cached = string(buffer, offset, null);
+				cache.put(offset, cached);
+			}
+			return cached;
+		}
+		int length = buffer.getInt(offset);
+		byte[] bytes = new byte[length];
+		// Absolute bulk get isn't available in java 8, so go through a duplicate
+		ByteBuffer source = buffer.duplicate();
+		source.position(offset + 4);
+		source.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static class StringTable {
+		// Offset of each distinct string, relative to the start of the strings section
+		private final Map<String, Integer> offsets = new LinkedHashMap<>();
+		private int size;
+		private int start;
+
+		void add(String value) {
+			if (value != null && !offsets.containsKey(value)) {
+				offsets.put(value, size);
+				size += 4 + value.getBytes(StandardCharsets.UTF_8).length;
+			}
+		}
+
+		int reference(String value) {
+			return value == null ? -1 : start + offsets.get(value);
+		}
+	}
+}
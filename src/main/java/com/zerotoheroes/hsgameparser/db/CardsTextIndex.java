@@ -0,0 +1,199 @@
+package com.zerotoheroes.hsgameparser.db;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Full-text index on the sanitized, lower-cased name and text of the cards. Words are the runs of
+ * letters and digits, and get their own inverted index so that word, prefix and substring queries
+ * only look at the (small) dictionary of distinct words. Each card also has its number of words and
+ * a bitmask of the letters a-z in its name.
+ */
+class CardsTextIndex {
+
+	private final Field name;
+	private final Field text;
+
+	// Bit n is set when the (n + 1)th letter of the alphabet appears in the name
+	private final int[] nameLetters;
+
+	private final Map<Integer, BitSet> byTextWordCount = new HashMap<>();
+
+	CardsTextIndex(List<DbCard> dbCards) {
+		int size = dbCards.size();
+		String[] names = new String[size];
+		String[] texts = new String[size];
+		nameLetters = new int[size];
+		for (int i = 0; i < size; i++) {
+			DbCard card = dbCards.get(i);
+			names[i] = sanitize(card.getName());
+			texts[i] = sanitize(card.getText());
+			nameLetters[i] = letters(names[i]);
+			byTextWordCount.computeIfAbsent(words(texts[i]).length, count -> new BitSet()).set(i);
+		}
+		name = new Field(names);
+		text = new Field(texts);
+	}
+
+	Field name() {
+		return name;
+	}
+
+	Field text() {
+		return text;
+	}
+
+	BitSet textWordCount(int minCount, int maxCount) {
+		BitSet result = new BitSet();
+		for (Map.Entry<Integer, BitSet> entry : byTextWordCount.entrySet()) {
+			if (entry.getKey() >= minCount && entry.getKey() <= maxCount) {
+				result.or(entry.getValue());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The cards whose name contains all the given letters (when present is true), or none of them
+	 */
+	BitSet nameLetters(String letters, boolean present) {
+		int mask = letters(letters.toLowerCase(Locale.ROOT));
+		if (mask == 0 && !letters.isEmpty()) {
+			throw new IllegalArgumentException("Only the letters a-z are indexed: " + letters);
+		}
+		BitSet result = new BitSet();
+		for (int i = 0; i < nameLetters.length; i++) {
+			int common = nameLetters[i] & mask;
+			if (present ? common == mask : common == 0) {
+				result.set(i);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the formatting tags and the placeholders ($ and #), joins the lines, lower-cases and
+	 * trims the value. Null gives an empty string.
+	 */
+	static String sanitize(String value) {
+		if (value == null) {
+			return "";
+		}
+		return value
+				.replace("<i>", "")
+				.replace("</i>", "")
+				.replace("[x]", "")
+				.replace("<b>", "")
+				.replace("</b>", "")
+				.replace("$", "")
+				.replace("#", "")
+				.replace("\n", " ")
+				.toLowerCase(Locale.ROOT)
+				.trim();
+	}
+
+	private static int letters(String value) {
+		int mask = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c >= 'a' && c <= 'z') {
+				mask |= 1 << (c - 'a');
+			}
+		}
+		return mask;
+	}
+
+	// The only tokenizer, for the word counts as well as for the word indexes
+	private static String[] words(String value) {
+		return Arrays.stream(value.split("[^\\p{L}\\p{N}]+"))
+				.filter(word -> !word.isEmpty())
+				.toArray(String[]::new);
+	}
+
+	/**
+	 * Inverted index of the words of one of the sanitized fields
+	 */
+	static class Field {
+
+		private final String[] values;
+
+		private final Map<String, BitSet> byWord = new HashMap<>();
+
+		// Distinct words, sorted so that the words sharing a prefix are contiguous
+		private final String[] dictionary;
+
+		private Field(String[] values) {
+			this.values = values;
+			for (int i = 0; i < values.length; i++) {
+				for (String word : words(values[i])) {
+					byWord.computeIfAbsent(word, key -> new BitSet()).set(i);
+				}
+			}
+			dictionary = byWord.keySet().toArray(new String[0]);
+			Arrays.sort(dictionary);
+		}
+
+		BitSet word(String word) {
+			BitSet positions = byWord.get(word.toLowerCase(Locale.ROOT));
+			return positions == null ? new BitSet() : positions;
+		}
+
+		BitSet wordStartingWith(String prefix) {
+			String lowerCasePrefix = prefix.toLowerCase(Locale.ROOT);
+			BitSet result = new BitSet();
+			int start = Arrays.binarySearch(dictionary, lowerCasePrefix);
+			for (int i = start < 0 ? -start - 1 : start;
+					i < dictionary.length && dictionary[i].startsWith(lowerCasePrefix);
+					i++) {
+				result.or(byWord.get(dictionary[i]));
+			}
+			return result;
+		}
+
+		/**
+		 * Plain substring match, on the sanitized value
+		 */
+		BitSet containing(String substring) {
+			String lowerCaseSubstring = substring.toLowerCase(Locale.ROOT);
+			String[] substringWords = words(lowerCaseSubstring);
+			if (substringWords.length == 0) {
+				// Only separators, nothing to look up in the dictionary
+				return verify(all(), lowerCaseSubstring);
+			}
+			// Any match contains the longest word of the substring inside one of its own words
+			String longest = substringWords[0];
+			for (String word : substringWords) {
+				longest = word.length() > longest.length() ? word : longest;
+			}
+			BitSet candidates = new BitSet();
+			for (String word : dictionary) {
+				if (word.contains(longest)) {
+					candidates.or(byWord.get(word));
+				}
+			}
+			return substringWords.length == 1 && longest.equals(lowerCaseSubstring)
+					? candidates
+					: verify(candidates, lowerCaseSubstring);
+		}
+
+		private BitSet verify(BitSet candidates, String substring) {
+			BitSet result = new BitSet();
+			for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+				if (values[i].contains(substring)) {
+					result.set(i);
+				}
+			}
+			return result;
+		}
+
+		private BitSet all() {
+			BitSet result = new BitSet(values.length);
+			result.set(0, values.length);
+			return result;
+		}
+	}
+}
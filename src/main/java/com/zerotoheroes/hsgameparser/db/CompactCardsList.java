@@ -0,0 +1,253 @@
+package com.zerotoheroes.hsgameparser.db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A {@link ICardsList} that keeps the cards in columns of primitive arrays instead of one
+ * {@link DbCard} object per card. The set, rarity, type and class are interned in small
+ * dictionaries, and the mechanics are stored as bitsets.
+ * <p>
+ * The {@link DbCard} instances returned are fresh copies decoded from the columns on each lookup
+ * (including each {@code getDbCards().get(i)}): modifying them doesn't change the list, and two
+ * lookups of the same card give two equal but distinct instances. Their mechanics come back in
+ * dictionary order, without duplicates.
+ */
+public class CompactCardsList implements ICardsList {
+
+	private final int size;
+
+	private final String[] ids;
+	private final String[] names;
+	private final String[] texts;
+	private final int[] dbfIds;
+	private final int[] costs;
+	private final int[] attacks;
+	private final int[] healths;
+	private final BitSet collectible;
+
+	// Indexes in the dictionary of their column, -1 for null
+	private final short[] playerClasses;
+	private final short[] types;
+	private final short[] rarities;
+	private final short[] sets;
+	private final String[] playerClassDictionary;
+	private final String[] typeDictionary;
+	private final String[] rarityDictionary;
+	private final String[] setDictionary;
+
+	// mechanicsWords longs per card. A card without mechanics (null) is flagged in noMechanics
+	private final String[] mechanicsDictionary;
+	private final int mechanicsWords;
+	private final long[] mechanics;
+	private final BitSet noMechanics;
+
+	// Positions of the cards, sorted by id, id ignoring case and dbfId, for binary searches
+	private final SortedPositions byId;
+	private final SortedPositions byIdIgnoreCase;
+	private final SortedPositions byDbfId;
+
+	private final List<DbCard> dbCards = new DbCardsView();
+
+	private CompactCardsList(List<DbCard> cards) {
+		size = cards.size();
+		ids = new String[size];
+		names = new String[size];
+		texts = new String[size];
+		dbfIds = new int[size];
+		costs = new int[size];
+		attacks = new int[size];
+		healths = new int[size];
+		collectible = new BitSet(size);
+		playerClasses = new short[size];
+		types = new short[size];
+		rarities = new short[size];
+		sets = new short[size];
+		noMechanics = new BitSet(size);
+
+		Dictionary playerClassValues = new Dictionary();
+		Dictionary typeValues = new Dictionary();
+		Dictionary rarityValues = new Dictionary();
+		Dictionary setValues = new Dictionary();
+		Dictionary mechanicValues = new Dictionary();
+		for (int i = 0; i < size; i++) {
+			DbCard card = cards.get(i);
+			ids[i] = card.getId();
+			names[i] = card.getName();
+			texts[i] = card.getText();
+			dbfIds[i] = card.getDbfId();
+			costs[i] = card.getCost();
+			attacks[i] = card.getAttack();
+			healths[i] = card.getHealth();
+			collectible.set(i, card.isCollectible());
+			playerClasses[i] = playerClassValues.indexOf(card.getPlayerClass());
+			types[i] = typeValues.indexOf(card.getType());
+			rarities[i] = rarityValues.indexOf(card.getRarity());
+			sets[i] = setValues.indexOf(card.getSet());
+			if (card.getMechanics() == null) {
+				noMechanics.set(i);
+			}
+			else {
+				card.getMechanics().forEach(mechanicValues::indexOf);
+			}
+		}
+		playerClassDictionary = playerClassValues.toArray();
+		typeDictionary = typeValues.toArray();
+		rarityDictionary = rarityValues.toArray();
+		setDictionary = setValues.toArray();
+		mechanicsDictionary = mechanicValues.toArray();
+
+		mechanicsWords = (mechanicsDictionary.length + 63) / 64;
+		mechanics = new long[size * mechanicsWords];
+		for (int i = 0; i < size; i++) {
+			List<String> cardMechanics = cards.get(i).getMechanics();
+			if (cardMechanics != null) {
+				for (String mechanic : cardMechanics) {
+					int bit = mechanicValues.indexOf(mechanic);
+					mechanics[i * mechanicsWords + bit / 64] |= 1L << (bit % 64);
+				}
+			}
+		}
+
+		byId = new SortedPositions(size, Comparator.comparing(i -> ids[i], Comparator.nullsFirst(Comparator.naturalOrder())));
+		byIdIgnoreCase = new SortedPositions(size, Comparator.comparing(i -> ids[i], Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+		byDbfId = new SortedPositions(size, Comparator.comparingInt(i -> dbfIds[i]));
+	}
+
+	public static CompactCardsList create() throws Exception {
+		return create(card -> true);
+	}
+
+	public static CompactCardsList create(Predicate<DbCard> filter) throws Exception {
+		try (InputStream stream = CardsList.openBundledCards()) {
+			return create(stream, filter);
+		}
+	}
+
+	public static CompactCardsList create(InputStream stream, Predicate<DbCard> filter) throws IOException {
+		return new CompactCardsList(CardsList.readCards(stream, filter));
+	}
+
+	public static CompactCardsList of(ICardsList cardsList) {
+		return new CompactCardsList(cardsList.getDbCards());
+	}
+
+	@Override
+	public List<DbCard> getDbCards() {
+		return dbCards;
+	}
+
+	@Override
+	public DbCard findDbCard(String cardId) {
+		if (cardId == null) {
+			return null;
+		}
+		int position = byId.search(i -> ids[i] == null ? 1 : cardId.compareTo(ids[i]));
+		return position < 0 ? null : view(position);
+	}
+
+	@Override
+	public DbCard findDbCardIgnoreCase(String cardId) {
+		if (cardId == null) {
+			return null;
+		}
+		int position = byIdIgnoreCase.search(i -> ids[i] == null ? 1 : String.CASE_INSENSITIVE_ORDER.compare(cardId, ids[i]));
+		return position < 0 ? null : view(position);
+	}
+
+	@Override
+	public DbCard dbCardFromDbfId(int dbfId) {
+		int position = byDbfId.search(i -> Integer.compare(dbfId, dbfIds[i]));
+		return position < 0 ? null : view(position);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private DbCard view(int position) {
+		DbCard card = new DbCard();
+		card.setId(ids[position]);
+		card.setDbfId(dbfIds[position]);
+		card.setCost(costs[position]);
+		card.setName(names[position]);
+		card.setAttack(attacks[position]);
+		card.setHealth(healths[position]);
+		card.setPlayerClass(lookup(playerClassDictionary, playerClasses[position]));
+		card.setType(lookup(typeDictionary, types[position]));
+		card.setRarity(lookup(rarityDictionary, rarities[position]));
+		card.setSet(lookup(setDictionary, sets[position]));
+		card.setText(texts[position]);
+		card.setCollectible(collectible.get(position));
+		card.setMechanics(mechanics(position));
+		return card;
+	}
+
+	private List<String> mechanics(int position) {
+		if (noMechanics.get(position)) {
+			return null;
+		}
+		List<String> result = new ArrayList<>();
+		for (int word = 0; word < mechanicsWords; word++) {
+			long bits = mechanics[position * mechanicsWords + word];
+			while (bits != 0) {
+				int bit = Long.numberOfTrailingZeros(bits);
+				result.add(mechanicsDictionary[word * 64 + bit]);
+				bits &= bits - 1;
+			}
+		}
+		return result;
+	}
+
+	private static String lookup(String[] dictionary, short index) {
+		return index < 0 ? null : dictionary[index];
+	}
+
+	private static class Dictionary {
+		private final Map<String, Short> indexes = new HashMap<>();
+		private final List<String> values = new ArrayList<>();
+
+		short indexOf(String value) {
+			if (value == null) {
+				return -1;
+			}
+			Short index = indexes.get(value);
+			if (index == null) {
+				if (values.size() == Short.MAX_VALUE) {
+					throw new IllegalStateException("Too many distinct values to intern: " + value);
+				}
+				index = (short) values.size();
+				indexes.put(value, index);
+				values.add(value);
+			}
+			return index;
+		}
+
+		String[] toArray() {
+			return values.toArray(new String[0]);
+		}
+	}
+
+	private class DbCardsView extends AbstractList<DbCard> {
+		@Override
+		public DbCard get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+			}
+			return view(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
@@ -2,11 +2,13 @@ package com.zerotoheroes.hsgameparser.db;
 
 import java.util.List;
 
-interface ICardsList {
+public interface ICardsList {
 
     List<DbCard> getDbCards();
 
     DbCard findDbCard(String cardId);
 
+    DbCard findDbCardIgnoreCase(String cardId);
+
     DbCard dbCardFromDbfId(int dbfId);
 }
@@ -0,0 +1,145 @@
+package com.zerotoheroes.hsgameparser.db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.zerotoheroes.hsgameparser.db.CardsSnapshot.HEADER_CARD_COUNT;
+import static com.zerotoheroes.hsgameparser.db.CardsSnapshot.RECORD_DBF_ID;
+import static com.zerotoheroes.hsgameparser.db.CardsSnapshot.RECORD_ID;
+import static com.zerotoheroes.hsgameparser.db.CardsSnapshot.recordOffset;
+
+/**
+ * A {@link ICardsList} reading the cards straight from a memory-mapped {@link CardsSnapshot}.
+ * <p>
+ * Between lookups, the cards are only kept in the mapped snapshot, in the page cache outside of the
+ * heap, shared by all the JVMs of the host that map it. The list itself keeps the card ids and the
+ * lookup indexes (a few ints per card) on the heap. Each lookup decodes a full {@link DbCard} copy,
+ * text and mechanics included, which lives on the heap for as long as the caller keeps it.
+ */
+public class MappedCardsList implements ICardsList {
+
+	private final ByteBuffer buffer;
+	private final int size;
+
+	// Decoded once, so that the lookups don't decode an id on each comparison
+	private final String[] ids;
+
+	private final SortedPositions byId;
+	private final SortedPositions byIdIgnoreCase;
+	private final SortedPositions byDbfId;
+
+	private final List<DbCard> dbCards = new MappedDbCards();
+
+	private MappedCardsList(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.size = buffer.getInt(HEADER_CARD_COUNT);
+
+		ids = new String[size];
+		for (int i = 0; i < size; i++) {
+			ids[i] = CardsSnapshot.string(buffer, buffer.getInt(recordOffset(i) + RECORD_ID), null);
+		}
+		byId = new SortedPositions(size, Comparator.comparing(i -> ids[i], Comparator.nullsFirst(Comparator.naturalOrder())));
+		byIdIgnoreCase = new SortedPositions(size, Comparator.comparing(i -> ids[i], Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+		byDbfId = new SortedPositions(size, Comparator.comparingInt(this::dbfId));
+	}
+
+	/**
+	 * Maps a snapshot, regardless of the cards.json it was built from
+	 */
+	public static MappedCardsList open(Path snapshotFile) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+			// The mapping stays valid once the channel is closed
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (!CardsSnapshot.hasValidHeader(buffer)) {
+			throw new IOException(snapshotFile + " is not a cards snapshot, or was built by another version");
+		}
+		return new MappedCardsList(buffer);
+	}
+
+	/**
+	 * Maps the snapshot of the bundled cards.json, rebuilding it first if it is missing or stale
+	 */
+	public static MappedCardsList openBundled(Path snapshotFile) throws IOException {
+		long checksum;
+		try (InputStream stream = CardsList.openBundledCards()) {
+			checksum = CardsSnapshot.checksum(stream);
+		}
+		if (!CardsSnapshot.isUpToDate(snapshotFile, checksum)) {
+			try (InputStream stream = CardsList.openBundledCards()) {
+				CardsSnapshot.write(CardsList.readCards(stream, card -> true), checksum, snapshotFile);
+			}
+		}
+		return open(snapshotFile);
+	}
+
+	@Override
+	public List<DbCard> getDbCards() {
+		return dbCards;
+	}
+
+	@Override
+	public DbCard findDbCard(String cardId) {
+		if (cardId == null) {
+			return null;
+		}
+		int position = byId.search(i -> {
+			String id = ids[i];
+			return id == null ? 1 : cardId.compareTo(id);
+		});
+		return position < 0 ? null : card(position);
+	}
+
+	@Override
+	public DbCard findDbCardIgnoreCase(String cardId) {
+		if (cardId == null) {
+			return null;
+		}
+		int position = byIdIgnoreCase.search(i -> {
+			String id = ids[i];
+			return id == null ? 1 : String.CASE_INSENSITIVE_ORDER.compare(cardId, id);
+		});
+		return position < 0 ? null : card(position);
+	}
+
+	@Override
+	public DbCard dbCardFromDbfId(int dbfId) {
+		int position = byDbfId.search(i -> Integer.compare(dbfId, dbfId(i)));
+		return position < 0 ? null : card(position);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private DbCard card(int position) {
+		return CardsSnapshot.decode(buffer, position, null);
+	}
+
+	private int dbfId(int position) {
+		return buffer.getInt(recordOffset(position) + RECORD_DBF_ID);
+	}
+
+	private class MappedDbCards extends AbstractList<DbCard> {
+		@Override
+		public DbCard get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+			}
+			return card(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.zerotoheroes.hsgameparser.db;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+
+/**
+ * Card positions sorted by some key, to find cards with binary searches in lists that don't keep
+ * one object per card.
+ */
+class SortedPositions {
+
+	private final int[] positions;
+
+	SortedPositions(int size, Comparator<Integer> comparator) {
+		// Stable sort, so that the first card wins among duplicates
+		Integer[] sorted = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			sorted[i] = i;
+		}
+		Arrays.sort(sorted, comparator);
+		positions = new int[size];
+		for (int i = 0; i < size; i++) {
+			positions[i] = sorted[i];
+		}
+	}
+
+	/**
+	 * Returns the position of the first card matching, or -1
+	 */
+	int search(PositionComparator comparator) {
+		int low = 0;
+		int high = positions.length - 1;
+		int found = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = comparator.compareTo(positions[middle]);
+			if (comparison > 0) {
+				low = middle + 1;
+			}
+			else {
+				if (comparison == 0) {
+					found = middle;
+				}
+				high = middle - 1;
+			}
+		}
+		return found < 0 ? -1 : positions[found];
+	}
+
+	/**
+	 * Returns the positions of all the cards matching, which are contiguous in the sorted order
+	 */
+	BitSet searchAll(PositionComparator comparator) {
+		// First sorted index where the searched key is not greater than the card key
+		int low = 0;
+		int high = positions.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (comparator.compareTo(positions[middle]) > 0) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		BitSet result = new BitSet();
+		for (int i = low; i < positions.length && comparator.compareTo(positions[i]) == 0; i++) {
+			result.set(positions[i]);
+		}
+		return result;
+	}
+
+	interface PositionComparator {
+		/**
+		 * Compares the searched key to the key of the card at the given position
+		 */
+		int compareTo(int position);
+	}
+}
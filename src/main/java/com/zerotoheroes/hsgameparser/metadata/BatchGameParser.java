@@ -0,0 +1,126 @@
+package com.zerotoheroes.hsgameparser.metadata;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Parses the metadata of many replays in parallel, with a single shared {@link GameParser}.
+ * <p>
+ * At most maxInFlight replays are being parsed (and so held in memory) at any time: the thread
+ * that submits the batch waits for a replay to be done before opening the next one. A replay that
+ * can't be parsed doesn't stop the batch, its failure is reported in its {@link MetaDataResult}.
+ */
+@Slf4j
+public class BatchGameParser {
+
+	private final GameParser gameParser;
+
+	private final Executor executor;
+
+	private final int maxInFlight;
+
+	/**
+	 * Runs on the common fork-join pool, with as many replays in flight as it has threads
+	 */
+	public BatchGameParser(GameParser gameParser) {
+		this(gameParser, ForkJoinPool.commonPool(), ForkJoinPool.commonPool().getParallelism());
+	}
+
+	/**
+	 * @param executor    any executor, typically a dedicated {@link ForkJoinPool}
+	 * @param maxInFlight how many replays can be parsed at the same time
+	 */
+	public BatchGameParser(GameParser gameParser, Executor executor, int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("maxInFlight must be at least 1, got " + maxInFlight);
+		}
+		this.gameParser = gameParser;
+		this.executor = executor;
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Parses all the replays, and returns their results in the same order
+	 */
+	public List<MetaDataResult> parse(Collection<ReplaySource> sources) throws InterruptedException {
+		MetaDataResult[] results = new MetaDataResult[sources.size()];
+		AtomicInteger index = new AtomicInteger();
+		parse(sources.stream().map(source -> new Indexed(index.getAndIncrement(), source)),
+				indexed -> indexed.source,
+				(indexed, result) -> results[indexed.index] = result);
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Parses the replays as the stream is consumed, and hands each result to the consumer as soon as
+	 * it is available, so that the results don't have to be kept either. The consumer is called from
+	 * the executor threads, possibly concurrently, and in no particular order.
+	 * <p>
+	 * Returns once every replay has been parsed and handed over.
+	 */
+	public void parse(Stream<ReplaySource> sources, Consumer<MetaDataResult> consumer) throws InterruptedException {
+		parse(sources, source -> source, (source, result) -> consumer.accept(result));
+	}
+
+	private <T> void parse(Stream<T> items, Function<T, ReplaySource> toSource,
+			BiConsumer<T, MetaDataResult> consumer) throws InterruptedException {
+		Semaphore inFlight = new Semaphore(maxInFlight);
+		try {
+			for (T item : (Iterable<T>) items::iterator) {
+				inFlight.acquire();
+				try {
+					executor.execute(() -> {
+						try {
+							consumer.accept(item, parse(toSource.apply(item)));
+						}
+						catch (RuntimeException e) {
+							log.error("Could not handle the result of " + toSource.apply(item), e);
+						}
+						finally {
+							inFlight.release();
+						}
+					});
+				}
+				catch (RuntimeException e) {
+					inFlight.release();
+					throw e;
+				}
+			}
+		}
+		finally {
+			// Wait for the replays still being parsed
+			inFlight.acquireUninterruptibly(maxInFlight);
+		}
+	}
+
+	private MetaDataResult parse(ReplaySource source) {
+		try {
+			return new MetaDataResult(source, source.parse(gameParser), null);
+		}
+		catch (Exception e) {
+			log.debug("Could not parse " + source, e);
+			return new MetaDataResult(source, null, e);
+		}
+	}
+
+	private static class Indexed {
+		private final int index;
+		private final ReplaySource source;
+
+		private Indexed(int index, ReplaySource source) {
+			this.index = index;
+			this.source = source;
+		}
+	}
+}
@@ -1,115 +1,222 @@
 package com.zerotoheroes.hsgameparser.metadata;
 
-import com.zerotoheroes.hsgameentities.enums.CardType;
-import com.zerotoheroes.hsgameentities.enums.GameTag;
-import com.zerotoheroes.hsgameentities.enums.PlayState;
-import com.zerotoheroes.hsgameentities.replaydata.GameData;
-import com.zerotoheroes.hsgameentities.replaydata.GameHelper;
 import com.zerotoheroes.hsgameentities.replaydata.HearthstoneReplay;
-import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
 import com.zerotoheroes.hsgameentities.replaydata.entities.FullEntity;
 import com.zerotoheroes.hsgameentities.replaydata.entities.GameEntity;
 import com.zerotoheroes.hsgameentities.replaydata.entities.PlayerEntity;
-import com.zerotoheroes.hsgameentities.replaydata.gameactions.Tag;
-import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
 import com.zerotoheroes.hsgameparser.db.CardsList;
+import com.zerotoheroes.hsgameparser.db.CardsListRegistry;
 import com.zerotoheroes.hsgameparser.db.DbCard;
-import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.ToString;
+import com.zerotoheroes.hsgameparser.db.ICardsList;
+import com.zerotoheroes.hsgameparser.replay.ReplayStreamReader;
+import com.zerotoheroes.hsgameparser.replay.TimestampCodec;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang.StringUtils;
-
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.Date;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
 
+/**
+ * Thread-safe: a single parser can be shared by all the threads parsing replays, see
+ * {@link BatchGameParser} to parse many of them in parallel.
+ */
 @Slf4j
 public class GameParser {
 
-	@Getter
-	private CardsList cardsList;
+	private final ICardsList cardsList;
+
+	private final CardsListRegistry cardsListRegistry;
+
+	private final GameParserMetrics metrics;
+
+	private final ReplayStreamReader replayStreamReader = new ReplayStreamReader();
 
 	public GameParser(CardsList cardsList) {
+		this((ICardsList) cardsList);
+	}
+
+	public GameParser(ICardsList cardsList) {
+		this(cardsList, GameParserMetrics.NONE);
+	}
+
+	public GameParser(ICardsList cardsList, GameParserMetrics metrics) {
 		this.cardsList = cardsList;
+		this.cardsListRegistry = null;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Always uses the latest cards of the registry, so that reloaded cards are picked up
+	 */
+	public GameParser(CardsListRegistry cardsListRegistry) {
+		this(cardsListRegistry, GameParserMetrics.NONE);
+	}
+
+	public GameParser(CardsListRegistry cardsListRegistry, GameParserMetrics metrics) {
+		this.cardsList = null;
+		this.cardsListRegistry = cardsListRegistry;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @deprecated the cards don't have to be a {@link CardsList} anymore, use {@link #getCards()}
+	 * @throws IllegalStateException when the parser was built with another {@link ICardsList}
+	 */
+	@Deprecated
+	public CardsList getCardsList() {
+		ICardsList cards = getCards();
+		if (!(cards instanceof CardsList)) {
+			throw new IllegalStateException("The cards are a " + cards.getClass().getSimpleName() + ", use getCards()");
+		}
+		return (CardsList) cards;
+	}
+
+	/**
+	 * The cards used to parse the games, the latest ones of the registry if the parser has one
+	 */
+	public ICardsList getCards() {
+		return cardsListRegistry != null ? cardsListRegistry.get() : cardsList;
 	}
 
 	public GameMetaData getMetaData(HearthstoneReplay replay, String gameMode) throws InvalidGameReplayException {
 		log.debug("retrieving metadata for " + replay);
 
+		// Walk the game only once, and gather everything we need on the way
+		MetaDataExtractor extractor = new MetaDataExtractor();
+		long start = startTimer();
+		replayStreamReader.read(replay, extractor::read);
+		return getMetaData(read(extractor, start), gameMode);
+	}
+
+	/**
+	 * Same as {@link #getMetaData(HearthstoneReplay, String)}, reading the replay XML as it is streamed
+	 * instead of building the whole replay first
+	 */
+	public GameMetaData getMetaData(InputStream replayXml, String gameMode)
+			throws InvalidGameReplayException, XMLStreamException {
+		MetaDataExtractor extractor = new MetaDataExtractor();
+		long start = startTimer();
+		replayStreamReader.read(replayXml, extractor::read);
+		return getMetaData(read(extractor, start), gameMode);
+	}
+
+	/**
+	 * Reads the replay file through a memory mapping
+	 */
+	public GameMetaData getMetaData(Path replayFile, String gameMode)
+			throws InvalidGameReplayException, IOException, XMLStreamException {
+		MetaDataExtractor extractor = new MetaDataExtractor();
+		long start = startTimer();
+		replayStreamReader.read(replayFile, extractor::read);
+		return getMetaData(read(extractor, start), gameMode);
+	}
+
+	public GameMetaData getMetaData(FileChannel replayFile, String gameMode)
+			throws InvalidGameReplayException, IOException, XMLStreamException {
+		MetaDataExtractor extractor = new MetaDataExtractor();
+		long start = startTimer();
+		replayStreamReader.read(replayFile, extractor::read);
+		return getMetaData(read(extractor, start), gameMode);
+	}
+
+	/**
+	 * Reads the remaining bytes of the buffer, without moving its position
+	 */
+	public GameMetaData getMetaData(ByteBuffer replayXml, String gameMode)
+			throws InvalidGameReplayException, XMLStreamException {
+		MetaDataExtractor extractor = new MetaDataExtractor();
+		long start = startTimer();
+		replayStreamReader.read(replayXml, extractor::read);
+		return getMetaData(read(extractor, start), gameMode);
+	}
+
+	/**
+	 * Starts following a game that is still being played: feed the game data to the returned game as
+	 * it comes, and ask for its metadata whenever needed
+	 */
+	public LiveGame startLiveGame(String gameMode) {
+		return new LiveGame(this, gameMode);
+	}
+
+	GameMetaData getMetaData(MetaDataExtractor extractor, String gameMode) throws InvalidGameReplayException {
 		GameMetaData meta = new GameMetaData();
 
-		GameHelper helper = new GameHelper();
-		helper.setGame(replay.getGames().get(0));
-		GameEntity gameEntity = helper.filterGameData(GameEntity.class).stream()
-				.map(entity -> (GameEntity)entity)
-				.findFirst()
-				.orElseThrow(IllegalArgumentException::new);
-
-		List<HasTag> orderedTags = new ArrayList<>();
-		for (GameData gameData : helper.getFlatData()) {
-			if (gameData instanceof TagChange) {
-				orderedTags.add(HasTag.of((TagChange) gameData));
-			}
-			else if (gameData instanceof BaseEntity) {
-				orderedTags.addAll(HasTag.from((BaseEntity) gameData));
-			}
+		GameEntity gameEntity = extractor.getGameEntity();
+		if (gameEntity == null) {
+			throw failure(InvalidGameReplayException.Reason.NO_GAME_ENTITY, "No game entity");
 		}
 
 		// Find out the first turn number - if it's not 1, no point in parsing
 		// the metadata
-		List<HasTag> turnTags = orderedTags.stream()
-				.filter(t -> t.getEntity() == gameEntity.getId() && t.getName() == GameTag.TURN.getIntValue())
-				.collect(Collectors.toList());
-
-		HasTag firstTurn = turnTags.isEmpty() ? null : turnTags.get(0);
-		if (firstTurn == null || firstTurn.getValue() != 1) {
-			throw new InvalidGameReplayException("first registered turn is " + firstTurn);
+		long start = startTimer();
+		Integer firstTurn = extractor.getFirstTurn(gameEntity.getId());
+		if (firstTurn == null) {
+			throw failure(InvalidGameReplayException.Reason.NO_TURNS, "No registered turn");
+		}
+		if (firstTurn != 1) {
+			throw failure(InvalidGameReplayException.Reason.MISSING_FIRST_TURN, "first registered turn is " + firstTurn);
 		}
 
 		// Find out the last turn number
-		HasTag lastTurn = turnTags.get(turnTags.size() - 1);
-		int numberOfTurns = (int) Math.ceil(lastTurn.getValue() / 2.0);
+		int lastTurn = extractor.getLastTurn(gameEntity.getId());
+		int numberOfTurns = (int) Math.ceil(lastTurn / 2.0);
 		meta.setNumberOfTurns(numberOfTurns);
 		if (numberOfTurns == 0) {
-			throw new InvalidGameReplayException("Should never have 0 turns");
+			throw failure(InvalidGameReplayException.Reason.NO_TURNS, "Should never have 0 turns");
 		}
+		stopTimer(ParsePhase.TURNS, start);
+
+		fillMetaData(meta, extractor, gameMode);
+
+		log.debug("retrieved meta " + meta);
 
-		// Game duration
-		List<GameData> timestampedData = helper.getFlatData().stream()
-				.filter(d -> !StringUtils.isEmpty(d.getTimestamp()))
-				.collect(Collectors.toList());
-		timestampedData.sort(Comparator.comparing(GameData::getTimestamp));
-
-		// Get the first and last moments
-		if (timestampedData.size() > 0) {
-			Date first = parseDate(timestampedData.get(0).getTimestamp());
-			Date last = parseDate(timestampedData.get(timestampedData.size() - 1).getTimestamp());
-			meta.setDurationInSeconds((int) ((last.getTime() - first.getTime()) / 1000));
+		return meta;
+	}
+
+	/**
+	 * Whatever can be told of a game that may not be over, or even started: missing information is
+	 * left empty instead of failing
+	 */
+	GameMetaData getPartialMetaData(MetaDataExtractor extractor, String gameMode) {
+		GameMetaData meta = new GameMetaData();
+		GameEntity gameEntity = extractor.getGameEntity();
+		Integer lastTurn = gameEntity == null ? null : extractor.getLastTurn(gameEntity.getId());
+		if (lastTurn != null) {
+			meta.setNumberOfTurns((int) Math.ceil(lastTurn / 2.0));
+		}
+		if (extractor.getMainPlayer() == null) {
+			setDuration(meta, extractor);
+			return meta;
 		}
+		try {
+			fillMetaData(meta, extractor, gameMode);
+		}
+		catch (NoSuchElementException e) {
+			// Opponent or heroes not known yet
+			log.debug("partial meta " + meta + ": " + e.getMessage());
+		}
+		return meta;
+	}
+
+	private void fillMetaData(GameMetaData meta, MetaDataExtractor extractor, String gameMode) {
+		long start = startTimer();
+		setDuration(meta, extractor);
+		start = stopTimer(ParsePhase.DURATION, start);
 
 		// Win status
 		// Get the main player. The first one being the "current player" is us
 		// The data will be ordered enough for us, as the tag is part of an
 		// Action block
-		PlayerEntity player = helper.getMainPlayer();
+		PlayerEntity player = extractor.getMainPlayer();
 		int ourEntityId = player.getId();
-		// Now findDbCard the tag change that tells us if we won
-		List<TagChange> tagChanges = helper.filterGameData(TagChange.class);
-		Optional<TagChange> winner = tagChanges.stream().filter(
-				t -> t.getName() == GameTag.PLAYSTATE.getIntValue() && t.getValue() == PlayState.WON.getIntValue())
-				.findFirst();
-
 		String winStatus = "unknown";
-		if (winner.isPresent()) {
-			if (ourEntityId == winner.get().getEntity()) {
+		if (extractor.getWinnerEntity() != null) {
+			if (ourEntityId == extractor.getWinnerEntity()) {
 				winStatus = "won";
 			}
 			else {
@@ -117,170 +224,77 @@ public class GameParser {
 			}
 		}
 		// No winner means a tie or a disconnect
-		else {
-			Optional<TagChange> tied = tagChanges.stream().filter(
-					t -> t.getName() == GameTag.PLAYSTATE.getIntValue() && t.getValue() == PlayState.TIED.getIntValue())
-					.findFirst();
-			if (tied.isPresent()) {
-				winStatus = "tied";
-			}
+		else if (extractor.isTied()) {
+			winStatus = "tied";
 		}
 		meta.setResult(winStatus);
-        if ("battlegrounds".equalsIgnoreCase(gameMode)) {
-            int lastBattlegroundsRank = extractLastBattlegroundsRank(helper, player);
-            meta.setAdditionalResult(String.valueOf(lastBattlegroundsRank));
-        }
+
+		// Find if we're on the coin or on the play
+		// The first player to draw 4 cards is on the coin
+		meta.setPlayCoin(extractor.getFirstPlayerEntity() == ourEntityId ? "play" : "coin");
+		start = stopTimer(ParsePhase.WINNER, start);
+
+		if ("battlegrounds".equalsIgnoreCase(gameMode)) {
+			int lastBattlegroundsRank = extractor.getLastBattlegroundsRank(player);
+			meta.setAdditionalResult(String.valueOf(lastBattlegroundsRank));
+			start = stopTimer(ParsePhase.BATTLEGROUNDS_RANK, start);
+		}
 
 		// Filter player data
-		List<PlayerEntity> players = helper.getPlayers();
+		List<PlayerEntity> players = extractor.getPlayers();
 		PlayerEntity player1 = players.stream().filter(p -> p.getId() == ourEntityId).findFirst().get();
 		PlayerEntity player2 = players.stream().filter(p -> p.getId() != ourEntityId).findFirst().get();
 
 		meta.setPlayerName(player1.getName());
-		meta.setPlayerClass(getPlayerClass(replay, player1));
-		meta.setPlayerCardId(getPlayerCardId(replay, helper, player1));
+		meta.setPlayerClass(getPlayerClass(extractor.getStartingHero(player1)));
+		meta.setPlayerCardId(extractor.getPlayedHero(player1).getCardId());
 		meta.setOpponentName(player2.getName());
-		meta.setOpponentClass(getPlayerClass(replay, player2));
-		meta.setOpponentCardId(getPlayerCardId(replay, helper, player2));
-
-		// Find if we're on the coin or on the play
-		// The first player to draw 4 cards is on the coin
-		HasTag firstPlayerTag = orderedTags.stream()
-				.filter(t -> t.getValue() == 1 && t.getName() == GameTag.FIRST_PLAYER.getIntValue())
-				.findFirst()
-				.orElse(new HasTag(-1, -1, -1));
-		meta.setPlayCoin(firstPlayerTag.getEntity() == ourEntityId ? "play" : "coin");
-
-		log.debug("retrieved meta " + meta);
-
-		return meta;
+		meta.setOpponentClass(getPlayerClass(extractor.getStartingHero(player2)));
+		meta.setOpponentCardId(extractor.getPlayedHero(player2).getCardId());
+		stopTimer(ParsePhase.HEROES, start);
 	}
 
-    private int extractLastBattlegroundsRank(GameHelper helper, PlayerEntity player) {
-        List<FullEntity> playerEntities = helper.filterGameData(FullEntity.class).stream()
-                .map(entity -> (FullEntity) entity)
-                .filter(entity -> entity.getTags().stream()
-                        .anyMatch(tag -> tag.getName() == GameTag.CARDTYPE.getIntValue()
-                                && tag.getValue() == CardType.HERO.getIntValue()))
-                .filter(entity -> entity.getTags().stream()
-                        .filter(tag -> tag.getName() == GameTag.CONTROLLER.getIntValue()
-                                && tag.getValue() == player.getPlayerId())
-                        .findFirst()
-                        .orElse(null) != null)
-                .filter(entity ->
-                        !Arrays.asList("TB_BaconShop_HERO_PH", "TB_BaconShop_HERO_KelThuzad", "TB_BaconShopBob")
-                                .contains(entity.getCardId()))
-                .collect(Collectors.toList());
-        List<Integer> entityIds = playerEntities.stream().map(BaseEntity::getId).collect(Collectors.toList());
-        List<Integer> tags = helper.filterGameData(TagChange.class).stream()
-                .map(entity -> (TagChange) entity)
-                .filter(tag -> tag.getName() == GameTag.PLAYER_LEADERBOARD_PLACE.getIntValue())
-                .filter(tag -> entityIds.contains(tag.getEntity()))
-                .map(TagChange::getValue)
-                .filter(value -> value > 0)
-                .collect(Collectors.toList());
-        if (tags == null || tags.size() == 0) {
-            tags = playerEntities.stream()
-                    .map(entity -> entity.getTags().stream()
-                            .filter(tag -> tag.getName() == GameTag.PLAYER_LEADERBOARD_PLACE.getIntValue())
-                            .findFirst()
-                            .orElse(null))
-                    .filter(Objects::nonNull)
-                    .map(Tag::getValue)
-                    .filter(value -> value > 0)
-                    .collect(Collectors.toList());
-        }
-        return tags == null || tags.size() == 0 ? 0 : tags.get(tags.size() - 1);
-    }
-
-    private Date parseDate(String timestamp) {
-		Date result = null;
-		// Try various formats
-		try {
-			result = new SimpleDateFormat("HH:mm:ss").parse(timestamp);
-		}
-		catch (ParseException e) {
-			try {
-				result = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSSSSXXX").parse(timestamp);
-			}
-			catch (ParseException e1) {
-				// TODO Auto-generated catch block
-				e1.printStackTrace();
-			}
-		}
-		return result;
+	// The game data has been read
+	private MetaDataExtractor read(MetaDataExtractor extractor, long start) {
+		stopTimer(ParsePhase.READ, start);
+		metrics.gameRead(extractor.getTagChanges(), extractor.getEntities());
+		return extractor;
 	}
 
-	private String getPlayerClass(HearthstoneReplay replay, PlayerEntity player) {
-		List<GameData> data = replay.getGames().get(0).getData();
-
-		int playerEntityId = player.getTags().stream().filter(t -> t.getName() == GameTag.HERO_ENTITY.getIntValue())
-				.findFirst().get().getValue();
-		FullEntity playerEntity = data.stream().filter(d -> (d instanceof FullEntity)).map(e -> (FullEntity) e)
-				.filter(e -> e.getId() == playerEntityId).findFirst().get();
+	private InvalidGameReplayException failure(InvalidGameReplayException.Reason reason, String message) {
+		metrics.failure(reason);
+		return new InvalidGameReplayException(reason, message);
+	}
 
-		return cardsList.getDbCards().stream()
-				.filter(c -> playerEntity.getCardId().equalsIgnoreCase(c.getId()))
-				.findFirst()
-				.map(DbCard::getPlayerClass)
-				.map(String::toLowerCase)
-				.orElse("unknown");
+	// The clock is only read when the metrics are recorded
+	private long startTimer() {
+		return metrics == GameParserMetrics.NONE ? 0 : System.nanoTime();
 	}
 
-	private String getPlayerCardId(HearthstoneReplay replay, GameHelper helper, PlayerEntity player) {
-		List<GameData> data = replay.getGames().get(0).getData();
-
-		int playerEntityId = player.getTags().stream()
-				.filter(t -> t.getName() == GameTag.HERO_ENTITY.getIntValue())
-				.findFirst()
-				.get()
-				.getValue();
-		FullEntity playerEntity = data.stream()
-				.filter(d -> (d instanceof FullEntity))
-				.map(e -> (FullEntity) e)
-				.filter(e -> e.getId() == playerEntityId)
-				.findFirst()
-				.get();
-
-		// That's the default value, pre-hero selection for battlegrounds. We actually
-		// want the hero that was picked
-		if ("TB_BaconShop_HERO_PH".equals(playerEntity.getCardId())) {
-			List<TagChange> tagChangeStream = helper.filterGameData(TagChange.class).stream()
-					.map(d -> (TagChange) d)
-					.filter(tagChange -> tagChange.getName() == GameTag.HERO_ENTITY.getIntValue())
-					.collect(Collectors.toList());
-			Integer pickedPlayedHero = tagChangeStream.stream()
-					.filter(tagChange -> tagChange.getEntity() == player.getId())
-					.map(tagChange -> tagChange.getValue())
-					.findFirst()
-					.orElse(null);
-			playerEntity = helper.filterGameData(FullEntity.class).stream()
-					.map(e -> (FullEntity) e)
-					.filter(e -> e.getId() == pickedPlayedHero)
-					.findFirst()
-					.get();
+	// Records the phase, and returns when the next one starts
+	private long stopTimer(ParsePhase phase, long start) {
+		if (metrics == GameParserMetrics.NONE) {
+			return 0;
 		}
-
-		return playerEntity.getCardId();
+		long now = System.nanoTime();
+		metrics.phase(phase, now - start);
+		return now;
 	}
 
-	@Getter
-	@RequiredArgsConstructor
-	@ToString
-	private static class HasTag {
-
-		private final int entity;
-		private final int name;
-		private final int value;
-
-		static HasTag of(TagChange tagChange) {
-			return new HasTag(tagChange.getEntity(), tagChange.getName(), tagChange.getValue());
+	// Game duration, from the first and last moments
+	private void setDuration(GameMetaData meta, MetaDataExtractor extractor) {
+		long first = TimestampCodec.toMillis(extractor.getFirstTimestamp());
+		long last = TimestampCodec.toMillis(extractor.getLastTimestamp());
+		if (first != TimestampCodec.INVALID && last != TimestampCodec.INVALID) {
+			meta.setDurationInSeconds((int) ((last - first) / 1000));
 		}
+	}
 
-		static List<HasTag> from(BaseEntity entity) {
-			return entity.getTags().stream()
-					.map(t -> new HasTag(entity.getId(), t.getName(), t.getValue()))
-					.collect(Collectors.toList());
+	private String getPlayerClass(FullEntity hero) {
+		DbCard dbCard = getCards().findDbCardIgnoreCase(hero.getCardId());
+		if (dbCard == null || dbCard.getPlayerClass() == null) {
+			return "unknown";
 		}
+		return dbCard.getPlayerClass().toLowerCase();
 	}
 }
@@ -0,0 +1,33 @@
+package com.zerotoheroes.hsgameparser.metadata;
+
+/**
+ * Where {@link GameParser} reports how long each phase of the parsing takes and what it has seen,
+ * to be bridged to whatever metrics library is in use. Every method does nothing by default, so
+ * that adapters only implement what they record.
+ * <p>
+ * A parser is shared by all the threads parsing replays, so the metrics are called concurrently.
+ * With {@link #NONE}, the parser doesn't even read the clock.
+ */
+public interface GameParserMetrics {
+
+	GameParserMetrics NONE = new GameParserMetrics() {
+	};
+
+	/**
+	 * One phase of one replay is done
+	 */
+	default void phase(ParsePhase phase, long durationInNanos) {
+	}
+
+	/**
+	 * The game data of one replay has been read
+	 */
+	default void gameRead(int tagChanges, int entities) {
+	}
+
+	/**
+	 * A replay was rejected
+	 */
+	default void failure(InvalidGameReplayException.Reason reason) {
+	}
+}
@@ -1,8 +1,31 @@
 package com.zerotoheroes.hsgameparser.metadata;
 
+import lombok.Getter;
+
 public class InvalidGameReplayException extends Exception {
 
+	/**
+	 * Why the replay was rejected, for the metrics
+	 */
+	public enum Reason {
+		// No game entity, the data isn't a game
+		NO_GAME_ENTITY,
+		// The game was picked up after its first turn
+		MISSING_FIRST_TURN,
+		// The game never started its first turn
+		NO_TURNS,
+		OTHER
+	}
+
+	@Getter
+	private final Reason reason;
+
 	public InvalidGameReplayException(String message) {
+		this(Reason.OTHER, message);
+	}
+
+	public InvalidGameReplayException(Reason reason, String message) {
 		super(message);
+		this.reason = reason;
 	}
 }
@@ -0,0 +1,46 @@
+package com.zerotoheroes.hsgameparser.metadata;
+
+import com.zerotoheroes.hsgameentities.replaydata.GameData;
+
+import java.util.function.Consumer;
+
+/**
+ * Metadata of a game that is still being played, see {@link GameParser#startLiveGame(String)}.
+ * <p>
+ * The game data is accepted as it arrives, in game order, and the metadata can be asked for at any
+ * time, for instance from another thread than the one feeding the game. Nothing is re-read when it
+ * is: it comes from what has been gathered so far.
+ */
+public class LiveGame implements Consumer<GameData> {
+
+	private final GameParser gameParser;
+
+	private final String gameMode;
+
+	private final MetaDataExtractor extractor = new MetaDataExtractor();
+
+	LiveGame(GameParser gameParser, String gameMode) {
+		this.gameParser = gameParser;
+		this.gameMode = gameMode;
+	}
+
+	@Override
+	public synchronized void accept(GameData data) {
+		extractor.read(data);
+	}
+
+	/**
+	 * What is known of the game so far. Missing information is left empty, and the result stays
+	 * "unknown" until the game is over.
+	 */
+	public synchronized GameMetaData getPartialMetaData() {
+		return gameParser.getPartialMetaData(extractor, gameMode);
+	}
+
+	/**
+	 * The same metadata as for a complete replay, once the game is over
+	 */
+	public synchronized GameMetaData getMetaData() throws InvalidGameReplayException {
+		return gameParser.getMetaData(extractor, gameMode);
+	}
+}
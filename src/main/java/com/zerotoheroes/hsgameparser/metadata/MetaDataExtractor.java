@@ -0,0 +1,271 @@
+package com.zerotoheroes.hsgameparser.metadata;
+
+import com.zerotoheroes.hsgameentities.enums.CardType;
+import com.zerotoheroes.hsgameentities.enums.GameTag;
+import com.zerotoheroes.hsgameentities.enums.PlayState;
+import com.zerotoheroes.hsgameentities.replaydata.GameData;
+import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+import com.zerotoheroes.hsgameentities.replaydata.entities.FullEntity;
+import com.zerotoheroes.hsgameentities.replaydata.entities.GameEntity;
+import com.zerotoheroes.hsgameentities.replaydata.entities.PlayerEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ShowEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.Tag;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
+import com.zerotoheroes.hsgameparser.replay.EntityStateIndex;
+import lombok.Getter;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Gathers everything {@link GameParser} needs to build a {@link GameMetaData} while the game data
+ * is walked once, in order. Feed it every element of the flattened game data, then query it.
+ */
+class MetaDataExtractor {
+
+	private static final List<String> NON_PLAYABLE_BATTLEGROUNDS_HEROES =
+			Arrays.asList("TB_BaconShop_HERO_PH", "TB_BaconShop_HERO_KelThuzad", "TB_BaconShopBob");
+
+	@Getter
+	private GameEntity gameEntity;
+
+	@Getter
+	private final List<PlayerEntity> players = new ArrayList<>();
+
+	// Entities and the history of the tags the metadata is built from
+	private final EntityStateIndex state = EntityStateIndex.tracking(
+			GameTag.TURN.getIntValue(),
+			GameTag.CONTROLLER.getIntValue(),
+			GameTag.HERO_ENTITY.getIntValue(),
+			GameTag.PLAYER_LEADERBOARD_PLACE.getIntValue(),
+			GameTag.APPEAR_FUNCTIONALLY_DEAD.getIntValue(),
+			GameTag.CARDTYPE.getIntValue());
+
+	private final List<FullEntity> heroes = new ArrayList<>();
+
+	// Entities of the revealed cards that aren't enchantments, in order
+	private final List<Integer> shownEntities = new ArrayList<>();
+
+	@Getter
+	private String firstTimestamp;
+
+	@Getter
+	private String lastTimestamp;
+
+	@Getter
+	private Integer winnerEntity;
+
+	@Getter
+	private boolean tied;
+
+	@Getter
+	private int firstPlayerEntity = -1;
+
+	// What has been read, for the metrics
+	@Getter
+	private int tagChanges;
+
+	@Getter
+	private int entities;
+
+	public void read(GameData data) {
+		String timestamp = data.getTimestamp();
+		if (!StringUtils.isEmpty(timestamp)) {
+			if (firstTimestamp == null || timestamp.compareTo(firstTimestamp) < 0) {
+				firstTimestamp = timestamp;
+			}
+			if (lastTimestamp == null || timestamp.compareTo(lastTimestamp) > 0) {
+				lastTimestamp = timestamp;
+			}
+		}
+
+		state.read(data);
+		if (data instanceof TagChange) {
+			tagChanges++;
+			readTagChange((TagChange) data);
+		}
+		else if (data instanceof BaseEntity) {
+			entities++;
+			readEntity((BaseEntity) data);
+		}
+		else if (data instanceof ShowEntity) {
+			readShowEntity((ShowEntity) data);
+		}
+	}
+
+	private void readTagChange(TagChange tagChange) {
+		int entity = tagChange.getEntity();
+		int name = tagChange.getName();
+		int value = tagChange.getValue();
+		readFirstPlayer(entity, name, value);
+
+		if (name == GameTag.PLAYSTATE.getIntValue()) {
+			if (value == PlayState.WON.getIntValue() && winnerEntity == null) {
+				winnerEntity = entity;
+			}
+			else if (value == PlayState.TIED.getIntValue()) {
+				tied = true;
+			}
+		}
+	}
+
+	private void readEntity(BaseEntity entity) {
+		if (entity instanceof GameEntity && gameEntity == null) {
+			gameEntity = (GameEntity) entity;
+		}
+		else if (entity instanceof PlayerEntity) {
+			players.add((PlayerEntity) entity);
+		}
+
+		boolean hero = false;
+		for (Tag tag : entity.getTags()) {
+			readFirstPlayer(entity.getId(), tag.getName(), tag.getValue());
+			hero |= tag.getName() == GameTag.CARDTYPE.getIntValue() && tag.getValue() == CardType.HERO.getIntValue();
+		}
+
+		if (entity instanceof FullEntity) {
+			FullEntity fullEntity = (FullEntity) entity;
+			if (hero && !NON_PLAYABLE_BATTLEGROUNDS_HEROES.contains(fullEntity.getCardId())) {
+				heroes.add(fullEntity);
+			}
+		}
+	}
+
+	private void readShowEntity(ShowEntity showEntity) {
+		if (StringUtils.isNotEmpty(showEntity.getCardId())
+				&& getTag(showEntity.getTags(), GameTag.CARDTYPE) != CardType.ENCHANTMENT.getIntValue()) {
+			shownEntities.add(showEntity.getEntity());
+		}
+	}
+
+	private void readFirstPlayer(int entity, int name, int value) {
+		if (name == GameTag.FIRST_PLAYER.getIntValue() && value == 1 && firstPlayerEntity == -1) {
+			firstPlayerEntity = entity;
+		}
+	}
+
+	/**
+	 * The player who recorded the game, with the same rules as {@link com.zerotoheroes.hsgameentities.replaydata.GameHelper#getMainPlayer()}
+	 */
+	public PlayerEntity getMainPlayer() {
+		// Only our own account is known
+		List<PlayerEntity> knownPlayers = new ArrayList<>();
+		for (PlayerEntity player : players) {
+			if (!"0".equals(player.getAccountHi())) {
+				knownPlayers.add(player);
+			}
+		}
+		if (knownPlayers.size() == 1) {
+			return knownPlayers.get(0);
+		}
+		// Otherwise, we're the one who sees the cards being revealed
+		for (int shownEntity : shownEntities) {
+			BaseEntity entity = state.getEntity(shownEntity);
+			if (entity == null || entity instanceof GameEntity) {
+				continue;
+			}
+			int controller = state.initial(shownEntity, GameTag.CONTROLLER.getIntValue(), -1);
+			for (PlayerEntity player : players) {
+				if (state.initial(player.getId(), GameTag.CONTROLLER.getIntValue(), -1) == controller) {
+					return player;
+				}
+			}
+		}
+		// Puzzles
+		for (PlayerEntity player : players) {
+			if (state.getEntity(state.initial(player.getId(), GameTag.HERO_ENTITY.getIntValue(), -1)) instanceof FullEntity
+					&& state.initial(player.getId(), GameTag.APPEAR_FUNCTIONALLY_DEAD.getIntValue(), -1) == -1) {
+				return player;
+			}
+		}
+		return null;
+	}
+
+	public Integer getFirstTurn(int entity) {
+		int event = state.firstEvent(entity, GameTag.TURN.getIntValue());
+		return event == -1 ? null : state.eventValue(event);
+	}
+
+	public Integer getLastTurn(int entity) {
+		int event = state.lastEvent(entity, GameTag.TURN.getIntValue());
+		return event == -1 ? null : state.eventValue(event);
+	}
+
+	public FullEntity getStartingHero(PlayerEntity player) {
+		return getFullEntity(getTag(player, GameTag.HERO_ENTITY));
+	}
+
+	public FullEntity getPlayedHero(PlayerEntity player) {
+		FullEntity hero = getStartingHero(player);
+		// That's the default value, pre-hero selection for battlegrounds. We actually
+		// want the hero that was picked
+		if ("TB_BaconShop_HERO_PH".equals(hero.getCardId())) {
+			int pickedHero = state.firstEvent(player.getId(), GameTag.HERO_ENTITY.getIntValue());
+			while (pickedHero != -1 && state.eventKind(pickedHero) != EntityStateIndex.CHANGE) {
+				pickedHero = state.nextEvent(pickedHero);
+			}
+			if (pickedHero == -1) {
+				throw new NoSuchElementException("No hero picked by " + player.getName());
+			}
+			hero = getFullEntity(state.eventValue(pickedHero));
+		}
+		return hero;
+	}
+
+	public int getLastBattlegroundsRank(PlayerEntity player) {
+		int leaderboardPlace = GameTag.PLAYER_LEADERBOARD_PLACE.getIntValue();
+		List<FullEntity> playerHeroes = new ArrayList<>();
+		// Latest positive change among all the heroes of the player
+		int lastChange = -1;
+		for (FullEntity hero : heroes) {
+			if (state.initial(hero.getId(), GameTag.CONTROLLER.getIntValue(), -1) == player.getPlayerId()) {
+				playerHeroes.add(hero);
+				for (int event = state.lastEvent(hero.getId(), leaderboardPlace); event > lastChange; event = state.previousEvent(event)) {
+					if (state.eventKind(event) == EntityStateIndex.CHANGE && state.eventValue(event) > 0) {
+						lastChange = event;
+						break;
+					}
+				}
+			}
+		}
+		if (lastChange != -1) {
+			return state.eventValue(lastChange);
+		}
+		// No change during the game, fallback on the initial values
+		int rank = 0;
+		for (FullEntity hero : playerHeroes) {
+			int initialRank = state.initial(hero.getId(), leaderboardPlace, 0);
+			rank = initialRank > 0 ? initialRank : rank;
+		}
+		return rank;
+	}
+
+	private FullEntity getFullEntity(int id) {
+		BaseEntity entity = state.getEntity(id);
+		if (!(entity instanceof FullEntity)) {
+			throw new NoSuchElementException("No full entity with id " + id);
+		}
+		return (FullEntity) entity;
+	}
+
+	// -1 when the tag isn't there
+	private static int getTag(List<Tag> tags, GameTag name) {
+		for (Tag tag : tags) {
+			if (tag.getName() == name.getIntValue()) {
+				return tag.getValue();
+			}
+		}
+		return -1;
+	}
+
+	private int getTag(BaseEntity entity, GameTag name) {
+		int event = state.firstEvent(entity.getId(), name.getIntValue());
+		if (event == -1 || state.eventKind(event) != EntityStateIndex.INITIAL) {
+			throw new NoSuchElementException("No " + name + " tag on entity " + entity.getId());
+		}
+		return state.eventValue(event);
+	}
+}
@@ -0,0 +1,29 @@
+package com.zerotoheroes.hsgameparser.metadata;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The outcome of parsing one replay of a batch: either its metadata, or the reason it couldn't be
+ * parsed. An {@link InvalidGameReplayException} means the replay itself is unusable, any other
+ * failure comes from reading it.
+ */
+@Data
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class MetaDataResult {
+
+	private final ReplaySource source;
+
+	private final GameMetaData metaData;
+
+	private final Exception failure;
+
+	public boolean isSuccess() {
+		return failure == null;
+	}
+
+	public boolean isInvalidReplay() {
+		return failure instanceof InvalidGameReplayException;
+	}
+}
@@ -0,0 +1,17 @@
+package com.zerotoheroes.hsgameparser.metadata;
+
+/**
+ * The steps of {@link GameParser#getMetaData}, in the order they run
+ */
+public enum ParsePhase {
+	// Walking the game data, from the XML or from the built replay
+	READ,
+	// First and last turns
+	TURNS,
+	DURATION,
+	// Main player, result and who played first
+	WINNER,
+	BATTLEGROUNDS_RANK,
+	// Classes and heroes of both players
+	HEROES
+}
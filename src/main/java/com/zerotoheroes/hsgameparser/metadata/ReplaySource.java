@@ -0,0 +1,62 @@
+package com.zerotoheroes.hsgameparser.metadata;
+
+import com.zerotoheroes.hsgameentities.replaydata.HearthstoneReplay;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+/**
+ * A replay to parse in a batch, with its game mode. Sources are only opened when they are parsed,
+ * so that a batch never holds more replays than it is parsing.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ReplaySource {
+
+	// Identifies the replay in the results and the logs
+	private final String name;
+
+	private final String gameMode;
+
+	@Getter(AccessLevel.NONE)
+	private final Parse parse;
+
+	/**
+	 * The replay file is memory mapped when it is parsed
+	 */
+	public static ReplaySource of(Path replayFile, String gameMode) {
+		return new ReplaySource(replayFile.toString(), gameMode, (parser, mode) -> parser.getMetaData(replayFile, mode));
+	}
+
+	/**
+	 * The stream is opened when the replay is parsed, and closed right after
+	 */
+	public static ReplaySource of(String name, Callable<InputStream> replayXml, String gameMode) {
+		return new ReplaySource(name, gameMode, (parser, mode) -> {
+			try (InputStream stream = replayXml.call()) {
+				return parser.getMetaData(stream, mode);
+			}
+		});
+	}
+
+	public static ReplaySource of(String name, HearthstoneReplay replay, String gameMode) {
+		return new ReplaySource(name, gameMode, (parser, mode) -> parser.getMetaData(replay, mode));
+	}
+
+	GameMetaData parse(GameParser parser) throws Exception {
+		return parse.parse(parser, gameMode);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	private interface Parse {
+		GameMetaData parse(GameParser parser, String gameMode) throws Exception;
+	}
+}
@@ -0,0 +1,271 @@
+package com.zerotoheroes.hsgameparser.replay;
+
+import com.zerotoheroes.hsgameentities.replaydata.GameData;
+import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * State of the entities of a single replay, built as its game data is read in order: the entities
+ * by id, and for each (entity, tag) pair, every value it took.
+ * <p>
+ * The values are the tags of the {@link TagStore} stream, and are called events here. They are
+ * numbered in reading order, and each one is either the initial value, a reveal or a change (see
+ * {@link TagStore#kind(int)}). The index links the events of each (entity, tag) pair, so that
+ * current, first and initial values are found in constant time, and the history of a tag walks
+ * through its own events only. Nothing is allocated per tag.
+ * <p>
+ * An index built with {@link #tracking(int...)} only keeps the values of the given tags (the
+ * entities are always kept): a replay has a few hundred thousand tags, while its reader usually
+ * needs a handful of them.
+ * <p>
+ * Not thread-safe: an index belongs to the replay being read.
+ */
+public class EntityStateIndex extends TagStore {
+
+	private static final long EMPTY = Long.MIN_VALUE;
+
+	// Tags whose values are kept, or null for all of them
+	private final BitSet tags;
+
+	// Entities by id, as first defined
+	private BaseEntity[] entities = new BaseEntity[128];
+
+	// Open addressing table of the (entity, tag) keys, with their first and last events
+	private long[] keys = emptyKeys(1024);
+	private int[] firstEvents = new int[1024];
+	private int[] lastEvents = new int[1024];
+	private int keyCount;
+
+	// Events of the same (entity, tag) pair, by event
+	private int[] previousEvents = new int[4096];
+	private int[] nextEvents = new int[4096];
+
+	/**
+	 * Keeps the values of all the tags
+	 */
+	public EntityStateIndex() {
+		this(null);
+	}
+
+	private EntityStateIndex(BitSet tags) {
+		this.tags = tags;
+	}
+
+	/**
+	 * Only keeps the values of these tags, or only the entities when there are none
+	 */
+	public static EntityStateIndex tracking(int... tags) {
+		BitSet tagSet = new BitSet();
+		for (int tag : tags) {
+			tagSet.set(tag);
+		}
+		return new EntityStateIndex(tagSet);
+	}
+
+	@Override
+	public void read(GameData data) {
+		if (data instanceof BaseEntity) {
+			BaseEntity entity = (BaseEntity) data;
+			if (entity.getId() >= 0 && getEntity(entity.getId()) == null) {
+				if (entity.getId() >= entities.length) {
+					entities = Arrays.copyOf(entities, Math.max(entities.length * 2, entity.getId() + 1));
+				}
+				entities[entity.getId()] = entity;
+			}
+		}
+		super.read(data);
+	}
+
+	/**
+	 * Whether the values of the tag are kept
+	 */
+	public boolean isTracked(int tag) {
+		return tags == null || tag >= 0 && tags.get(tag);
+	}
+
+	/**
+	 * The first definition of the entity (full entity, player or game), or null
+	 */
+	public BaseEntity getEntity(int id) {
+		return id >= 0 && id < entities.length ? entities[id] : null;
+	}
+
+	/**
+	 * The latest value of the tag, or missing if it never had one (or isn't tracked)
+	 */
+	public int current(int entity, int tag, int missing) {
+		int event = lastEvent(entity, tag);
+		return event == -1 ? missing : value(event);
+	}
+
+	/**
+	 * The oldest value of the tag, whatever its origin, or missing if it never had one
+	 */
+	public int first(int entity, int tag, int missing) {
+		int event = firstEvent(entity, tag);
+		return event == -1 ? missing : value(event);
+	}
+
+	/**
+	 * The value of the tag in the definition of the entity, or missing if it wasn't there
+	 */
+	public int initial(int entity, int tag, int missing) {
+		int event = firstEvent(entity, tag);
+		return event != -1 && kind(event) == INITIAL ? value(event) : missing;
+	}
+
+	/**
+	 * All the values of the tag, oldest first
+	 */
+	public int[] history(int entity, int tag) {
+		int count = 0;
+		for (int event = firstEvent(entity, tag); event != -1; event = nextEvents[event]) {
+			count++;
+		}
+		int[] history = new int[count];
+		int i = 0;
+		for (int event = firstEvent(entity, tag); event != -1; event = nextEvents[event]) {
+			history[i++] = value(event);
+		}
+		return history;
+	}
+
+	/**
+	 * The oldest event of the tag, or -1. Events are numbered in reading order, across all the tags.
+	 */
+	public int firstEvent(int entity, int tag) {
+		int slot = find(key(entity, tag));
+		return slot == -1 ? -1 : firstEvents[slot];
+	}
+
+	/**
+	 * The latest event of the tag, or -1
+	 */
+	public int lastEvent(int entity, int tag) {
+		int slot = find(key(entity, tag));
+		return slot == -1 ? -1 : lastEvents[slot];
+	}
+
+	/**
+	 * The next event of the same tag, or -1
+	 */
+	public int nextEvent(int event) {
+		return nextEvents[event];
+	}
+
+	/**
+	 * The previous event of the same tag, or -1
+	 */
+	public int previousEvent(int event) {
+		return previousEvents[event];
+	}
+
+	public int eventValue(int event) {
+		return value(event);
+	}
+
+	/**
+	 * {@link #INITIAL}, {@link #REVEAL} or {@link #CHANGE}
+	 */
+	public int eventKind(int event) {
+		return kind(event);
+	}
+
+	/**
+	 * Appends the tag to the stream and links it to the previous event of the same pair
+	 *
+	 * @return the event, or -1 when the tag isn't tracked
+	 */
+	@Override
+	protected int add(int entity, int tag, int value, int kind) {
+		if (!isTracked(tag)) {
+			return -1;
+		}
+		int event = super.add(entity, tag, value, kind);
+		if (event == nextEvents.length) {
+			int capacity = nextEvents.length * 2;
+			previousEvents = Arrays.copyOf(previousEvents, capacity);
+			nextEvents = Arrays.copyOf(nextEvents, capacity);
+		}
+		nextEvents[event] = -1;
+
+		long key = key(entity, tag);
+		int slot = find(key);
+		if (slot == -1) {
+			previousEvents[event] = -1;
+			insert(key, event, event);
+		}
+		else {
+			int last = lastEvents[slot];
+			previousEvents[event] = last;
+			nextEvents[last] = event;
+			lastEvents[slot] = event;
+		}
+		return event;
+	}
+
+	private int find(long key) {
+		int mask = keys.length - 1;
+		for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+			if (keys[slot] == EMPTY) {
+				return -1;
+			}
+		}
+	}
+
+	private void insert(long key, int first, int last) {
+		// Keep the table at most half full, so that probe sequences stay short
+		if (++keyCount * 2 > keys.length) {
+			resize();
+		}
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY) {
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		firstEvents[slot] = first;
+		lastEvents[slot] = last;
+	}
+
+	private void resize() {
+		long[] oldKeys = keys;
+		int[] oldFirstEvents = firstEvents;
+		int[] oldLastEvents = lastEvents;
+		keys = emptyKeys(oldKeys.length * 2);
+		firstEvents = new int[keys.length];
+		lastEvents = new int[keys.length];
+		int mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = hash(oldKeys[i]) & mask;
+				while (keys[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				firstEvents[slot] = oldFirstEvents[i];
+				lastEvents[slot] = oldLastEvents[i];
+			}
+		}
+	}
+
+	private static long key(int entity, int tag) {
+		return ((long) entity << 32) | (tag & 0xFFFFFFFFL);
+	}
+
+	private static int hash(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	private static long[] emptyKeys(int capacity) {
+		long[] keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		return keys;
+	}
+}
@@ -0,0 +1,78 @@
+package com.zerotoheroes.hsgameparser.replay;
+
+import com.zerotoheroes.hsgameentities.replaydata.GameData;
+import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ChangeEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.HideEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ShowEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
+
+import java.util.BitSet;
+
+/**
+ * The game data a reader needs. {@link ReplayStreamReader} doesn't decode (nor allocate) what is
+ * left out: the elements are skipped in the XML, and tag changes are dropped as soon as their tag
+ * is known.
+ * <p>
+ * Immutable.
+ */
+public final class GameDataFilter {
+
+	public static final GameDataFilter ALL = new GameDataFilter(true, null, true);
+
+	// Entities, and their reveals, changes and hides
+	private final boolean entities;
+
+	// Tags of the tag changes, or null for all of them
+	private final BitSet tags;
+
+	// Actions, options, choices and meta data
+	private final boolean actions;
+
+	private GameDataFilter(boolean entities, BitSet tags, boolean actions) {
+		this.entities = entities;
+		this.tags = tags;
+		this.actions = actions;
+	}
+
+	/**
+	 * Only the changes of these tags
+	 */
+	public static GameDataFilter tagChanges(int... tags) {
+		BitSet tagSet = new BitSet();
+		for (int tag : tags) {
+			tagSet.set(tag);
+		}
+		return new GameDataFilter(false, tagSet, false);
+	}
+
+	/**
+	 * Same filter, also accepting the entities
+	 */
+	public GameDataFilter withEntities() {
+		return new GameDataFilter(true, tags, actions);
+	}
+
+	public boolean acceptsEntities() {
+		return entities;
+	}
+
+	public boolean acceptsTagChange(int tag) {
+		return tags == null || tag >= 0 && tags.get(tag);
+	}
+
+	public boolean acceptsActions() {
+		return actions;
+	}
+
+	public boolean accepts(GameData data) {
+		if (data instanceof TagChange) {
+			return acceptsTagChange(((TagChange) data).getName());
+		}
+		if (data instanceof BaseEntity || data instanceof ShowEntity || data instanceof ChangeEntity
+				|| data instanceof HideEntity) {
+			return entities;
+		}
+		return actions;
+	}
+}
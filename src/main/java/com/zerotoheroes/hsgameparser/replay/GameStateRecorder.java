@@ -0,0 +1,156 @@
+package com.zerotoheroes.hsgameparser.replay;
+
+import com.zerotoheroes.hsgameentities.enums.GameTag;
+import com.zerotoheroes.hsgameentities.replaydata.GameData;
+import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+import com.zerotoheroes.hsgameentities.replaydata.entities.GameEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ChangeEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ShowEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.Tag;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.zerotoheroes.hsgameparser.replay.GameStateSnapshot.BLOCK_SHIFT;
+import static com.zerotoheroes.hsgameparser.replay.GameStateSnapshot.BLOCK_SIZE;
+import static com.zerotoheroes.hsgameparser.replay.GameStateSnapshot.TRACKED_TAGS;
+
+/**
+ * Takes a {@link GameStateSnapshot} each time the game entity's TURN changes, while the game data
+ * is read in order (for instance <code>replayStreamReader.read(replayFile, recorder::read)</code>).
+ * Seeking to a turn is then a lookup instead of a replay of everything before it.
+ * <p>
+ * Not thread-safe: a recorder belongs to the replay being read.
+ */
+public class GameStateRecorder {
+
+	private static final int[] TRACKED_TAG_VALUES = Arrays.stream(TRACKED_TAGS).mapToInt(GameTag::getIntValue).toArray();
+
+	private static final int TURN = GameTag.TURN.getIntValue();
+
+	private final List<GameStateSnapshot> snapshots = new ArrayList<>();
+
+	private int gameEntity = 1;
+
+	// Current state, laid out like the snapshots
+	private long[] present = new long[4];
+
+	private int[][] blocks = new int[4][];
+
+	// Blocks modified since the last snapshot
+	private boolean[] dirty = new boolean[4];
+
+	// Blocks of the last snapshot, shared by the next one when they didn't change
+	private int[][] published = new int[0][];
+
+	public void read(GameData data) {
+		if (data instanceof TagChange) {
+			TagChange tagChange = (TagChange) data;
+			set(tagChange.getEntity(), tagChange.getName(), tagChange.getValue());
+			if (tagChange.getEntity() == gameEntity && tagChange.getName() == TURN) {
+				snapshot(tagChange.getValue());
+			}
+		}
+		else if (data instanceof BaseEntity) {
+			BaseEntity entity = (BaseEntity) data;
+			if (entity instanceof GameEntity) {
+				gameEntity = entity.getId();
+			}
+			if (entity.getId() >= 0) {
+				block(entity.getId());
+				present[entity.getId() >> BLOCK_SHIFT] |= 1L << entity.getId();
+				setAll(entity.getId(), entity.getTags());
+			}
+		}
+		else if (data instanceof ShowEntity) {
+			setAll(((ShowEntity) data).getEntity(), ((ShowEntity) data).getTags());
+		}
+		else if (data instanceof ChangeEntity) {
+			setAll(((ChangeEntity) data).getEntity(), ((ChangeEntity) data).getTags());
+		}
+	}
+
+	/**
+	 * The snapshots taken so far, by increasing turn
+	 */
+	public List<GameStateSnapshot> getSnapshots() {
+		return Collections.unmodifiableList(snapshots);
+	}
+
+	/**
+	 * State at the start of the turn, or null if the game didn't reach it
+	 */
+	public GameStateSnapshot getSnapshot(int turn) {
+		int low = 0;
+		int high = snapshots.size() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int middleTurn = snapshots.get(middle).getTurn();
+			if (middleTurn < turn) {
+				low = middle + 1;
+			}
+			else if (middleTurn > turn) {
+				high = middle - 1;
+			}
+			else {
+				return snapshots.get(middle);
+			}
+		}
+		return null;
+	}
+
+	private void snapshot(int turn) {
+		int[][] snapshotBlocks = new int[blocks.length][];
+		for (int i = 0; i < blocks.length; i++) {
+			if (i < published.length && !dirty[i]) {
+				snapshotBlocks[i] = published[i];
+			}
+			else if (blocks[i] != null) {
+				snapshotBlocks[i] = blocks[i].clone();
+			}
+		}
+		Arrays.fill(dirty, false);
+		published = snapshotBlocks;
+		snapshots.add(new GameStateSnapshot(turn, present.clone(), snapshotBlocks));
+	}
+
+	private void setAll(int entity, List<Tag> tags) {
+		if (tags == null) {
+			return;
+		}
+		for (Tag tag : tags) {
+			set(entity, tag.getName(), tag.getValue());
+		}
+	}
+
+	private void set(int entity, int name, int value) {
+		if (entity < 0) {
+			return;
+		}
+		for (int i = 0; i < TRACKED_TAG_VALUES.length; i++) {
+			if (TRACKED_TAG_VALUES[i] == name) {
+				block(entity)[(entity & (BLOCK_SIZE - 1)) * TRACKED_TAGS.length + i] = value;
+				return;
+			}
+		}
+	}
+
+	// The block of the entity, about to be modified
+	private int[] block(int entity) {
+		int block = entity >> BLOCK_SHIFT;
+		if (block >= blocks.length) {
+			int capacity = Math.max(blocks.length * 2, block + 1);
+			present = Arrays.copyOf(present, capacity);
+			blocks = Arrays.copyOf(blocks, capacity);
+			dirty = Arrays.copyOf(dirty, capacity);
+		}
+		if (blocks[block] == null) {
+			blocks[block] = new int[BLOCK_SIZE * TRACKED_TAGS.length];
+		}
+		dirty[block] = true;
+		return blocks[block];
+	}
+}
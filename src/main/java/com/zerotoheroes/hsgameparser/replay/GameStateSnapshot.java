@@ -0,0 +1,115 @@
+package com.zerotoheroes.hsgameparser.replay;
+
+import com.zerotoheroes.hsgameentities.enums.GameTag;
+
+/**
+ * Immutable state of the entities when a turn started: which entities exist, and their zone,
+ * controller, health, damage, armor and attack. Tags an entity doesn't have read as 0.
+ * <p>
+ * Entity ids are grouped in blocks of {@value #BLOCK_SIZE}, each block holding the tracked tags of
+ * its entities in a single int array. Blocks that didn't change during a turn are shared with the
+ * snapshot of the previous turn, so a snapshot only costs the blocks the turn touched.
+ */
+public class GameStateSnapshot {
+
+	static final int BLOCK_SIZE = 64;
+
+	static final int BLOCK_SHIFT = 6;
+
+	// Tags kept for each entity, in the order they are laid out in the blocks
+	static final GameTag[] TRACKED_TAGS = {
+			GameTag.ZONE, GameTag.CONTROLLER, GameTag.HEALTH, GameTag.DAMAGE, GameTag.ARMOR, GameTag.ATK };
+
+	private static final int ZONE = 0;
+	private static final int CONTROLLER = 1;
+	private static final int HEALTH = 2;
+	private static final int DAMAGE = 3;
+	private static final int ARMOR = 4;
+	private static final int ATK = 5;
+
+	private final int turn;
+
+	// Bit set of the existing entity ids
+	private final long[] present;
+
+	// Tracked tags, block by block: the tag t of entity id is at blocks[id >> 6][(id & 63) * tags + t]
+	private final int[][] blocks;
+
+	GameStateSnapshot(int turn, long[] present, int[][] blocks) {
+		this.turn = turn;
+		this.present = present;
+		this.blocks = blocks;
+	}
+
+	public int getTurn() {
+		return turn;
+	}
+
+	public boolean contains(int entity) {
+		return entity >= 0 && (entity >> BLOCK_SHIFT) < present.length && (present[entity >> BLOCK_SHIFT] & (1L << entity)) != 0;
+	}
+
+	/**
+	 * Ids of the existing entities, in ascending order
+	 */
+	public int[] getEntityIds() {
+		int count = 0;
+		for (long bits : present) {
+			count += Long.bitCount(bits);
+		}
+		int[] ids = new int[count];
+		int i = 0;
+		for (int block = 0; block < present.length; block++) {
+			for (long bits = present[block]; bits != 0; bits &= bits - 1) {
+				ids[i++] = (block << BLOCK_SHIFT) + Long.numberOfTrailingZeros(bits);
+			}
+		}
+		return ids;
+	}
+
+	public int getZone(int entity) {
+		return get(entity, ZONE);
+	}
+
+	public int getController(int entity) {
+		return get(entity, CONTROLLER);
+	}
+
+	public int getHealth(int entity) {
+		return get(entity, HEALTH);
+	}
+
+	public int getDamage(int entity) {
+		return get(entity, DAMAGE);
+	}
+
+	public int getArmor(int entity) {
+		return get(entity, ARMOR);
+	}
+
+	public int getAttack(int entity) {
+		return get(entity, ATK);
+	}
+
+	/**
+	 * Whether both snapshots hold the very same block for this entity, i.e. none of the entities of
+	 * the block changed in between
+	 */
+	boolean sharesBlock(GameStateSnapshot other, int entity) {
+		int block = entity >> BLOCK_SHIFT;
+		return block < blocks.length && block < other.blocks.length && blocks[block] == other.blocks[block];
+	}
+
+	private int get(int entity, int tag) {
+		if (!contains(entity)) {
+			return 0;
+		}
+		int[] block = blocks[entity >> BLOCK_SHIFT];
+		return block[(entity & (BLOCK_SIZE - 1)) * TRACKED_TAGS.length + tag];
+	}
+
+	@Override
+	public String toString() {
+		return "GameStateSnapshot(turn=" + turn + ", entities=" + getEntityIds().length + ")";
+	}
+}
@@ -0,0 +1,329 @@
+package com.zerotoheroes.hsgameparser.replay;
+
+import com.zerotoheroes.hsgameentities.replaydata.Game;
+import com.zerotoheroes.hsgameentities.replaydata.GameData;
+import com.zerotoheroes.hsgameentities.replaydata.HearthstoneReplay;
+import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+import com.zerotoheroes.hsgameentities.replaydata.entities.FullEntity;
+import com.zerotoheroes.hsgameentities.replaydata.entities.GameEntity;
+import com.zerotoheroes.hsgameentities.replaydata.entities.PlayerEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.Action;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ChangeEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ChosenEntities;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.HideEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ShowEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.Tag;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
+import com.zerotoheroes.hsgameentities.replaydata.meta.Choices;
+import com.zerotoheroes.hsgameentities.replaydata.meta.MetaData;
+import com.zerotoheroes.hsgameentities.replaydata.meta.SendChoices;
+import com.zerotoheroes.hsgameentities.replaydata.meta.options.Options;
+import com.zerotoheroes.hsgameentities.replaydata.meta.options.SendOption;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the game data of a replay one element at a time, straight from the XML, so that the
+ * whole {@link HearthstoneReplay} never has to be built.
+ * <p>
+ * The game data is emitted in the same order as {@link com.zerotoheroes.hsgameentities.replaydata.GameHelper#getFlatData()},
+ * and only for the first game of the replay. Actions are emitted when they start, without their
+ * data (which is emitted right after them), and entities once all their tags have been read.
+ * Listeners should not use {@link Action#getData()}: it is empty for the streamed actions, while
+ * the actions of a replay that has already been built keep their children, which are emitted
+ * right after them either way.
+ * Options, choices and meta data only carry their timestamp, since nothing else is used when
+ * parsing.
+ * <p>
+ * A reader built with a {@link GameDataFilter} only emits (and only decodes) the data the filter
+ * accepts.
+ * <p>
+ * Thread-safe: the reader keeps no state between two replays.
+ */
+public class ReplayStreamReader {
+
+	private static final XMLInputFactory FACTORY = createFactory();
+
+	private final GameDataFilter filter;
+
+	public ReplayStreamReader() {
+		this(GameDataFilter.ALL);
+	}
+
+	public ReplayStreamReader(GameDataFilter filter) {
+		this.filter = filter;
+	}
+
+	public void read(InputStream stream, Consumer<GameData> listener) throws XMLStreamException {
+		XMLStreamReader reader;
+		// Factories aren't guaranteed to be thread-safe, the readers they create are independent
+		synchronized (FACTORY) {
+			reader = FACTORY.createXMLStreamReader(stream);
+		}
+		try {
+			// Move to the first game
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT && "Game".equals(reader.getLocalName())) {
+					readChildren(reader, listener);
+					return;
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Reads a replay file through a memory mapping, so that its content is never copied on the heap
+	 * before being parsed
+	 */
+	public void read(Path replayFile, Consumer<GameData> listener) throws IOException, XMLStreamException {
+		try (FileChannel channel = FileChannel.open(replayFile, StandardOpenOption.READ)) {
+			read(channel, listener);
+		}
+	}
+
+	/**
+	 * Maps the whole content of the channel, whatever its current position
+	 */
+	public void read(FileChannel channel, Consumer<GameData> listener) throws IOException, XMLStreamException {
+		read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), listener);
+	}
+
+	/**
+	 * Reads the remaining bytes of the buffer, which can be mapped or direct. The position of the
+	 * buffer is left untouched.
+	 */
+	public void read(ByteBuffer replayXml, Consumer<GameData> listener) throws XMLStreamException {
+		read(new ByteBufferInputStream(replayXml), listener);
+	}
+
+	/**
+	 * Emits the data of a replay that has already been built, in the same order as when streaming it.
+	 * The actions are the ones of the replay, and still hold their children.
+	 */
+	public void read(HearthstoneReplay replay, Consumer<GameData> listener) {
+		if (replay.getGames() == null || replay.getGames().isEmpty()) {
+			return;
+		}
+		Game game = replay.getGames().get(0);
+		for (GameData data : game.getData()) {
+			emit(data, listener);
+		}
+	}
+
+	private void emit(GameData data, Consumer<GameData> listener) {
+		if (filter.accepts(data)) {
+			listener.accept(data);
+		}
+		if (data instanceof Action) {
+			for (GameData child : ((Action) data).getData()) {
+				emit(child, listener);
+			}
+		}
+	}
+
+	// Reads the children of the current element, up to its end
+	private void readChildren(XMLStreamReader reader, Consumer<GameData> listener) throws XMLStreamException {
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				return;
+			}
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				readElement(reader, listener);
+			}
+		}
+	}
+
+	private void readElement(XMLStreamReader reader, Consumer<GameData> listener) throws XMLStreamException {
+		String name = reader.getLocalName();
+		if (!accepts(reader, name)) {
+			// The children of an action are still needed
+			if ("Block".equals(name) || "Action".equals(name)) {
+				readChildren(reader, listener);
+			}
+			else {
+				skip(reader);
+			}
+			return;
+		}
+		String timestamp = reader.getAttributeValue(null, "ts");
+		switch (name) {
+			case "Block":
+			case "Action":
+				Action action = new Action();
+				action.setTimestamp(timestamp);
+				action.setEntity(intAttribute(reader, "entity"));
+				action.setIndex(intAttribute(reader, "index"));
+				action.setEffectIndex(intAttribute(reader, "effectIndex"));
+				action.setTarget(intAttribute(reader, "target"));
+				action.setType(intAttribute(reader, "type"));
+				action.setSubOption(intAttribute(reader, "subOption"));
+				action.setTriggerKeyword(intAttribute(reader, "triggerKeyword"));
+				action.setData(new ArrayList<>());
+				listener.accept(action);
+				readChildren(reader, listener);
+				break;
+			case "TagChange":
+				TagChange tagChange = new TagChange(
+						intAttribute(reader, "entity"),
+						intAttribute(reader, "tag"),
+						intAttribute(reader, "value"));
+				tagChange.setTimestamp(timestamp);
+				skip(reader);
+				listener.accept(tagChange);
+				break;
+			case "GameEntity":
+				GameEntity gameEntity = new GameEntity();
+				readEntity(reader, gameEntity, timestamp);
+				listener.accept(gameEntity);
+				break;
+			case "Player":
+				PlayerEntity player = new PlayerEntity();
+				player.setAccountHi(reader.getAttributeValue(null, "accountHi"));
+				player.setAccountLo(reader.getAttributeValue(null, "accountLo"));
+				player.setPlayerId(intAttribute(reader, "playerID"));
+				player.setName(reader.getAttributeValue(null, "name"));
+				player.setRank(reader.getAttributeValue(null, "rank"));
+				player.setLegendRank(reader.getAttributeValue(null, "legendRank"));
+				player.setCardback(reader.getAttributeValue(null, "cardback"));
+				readEntity(reader, player, timestamp);
+				listener.accept(player);
+				break;
+			case "FullEntity":
+				String cardId = reader.getAttributeValue(null, "cardID");
+				int id = intAttribute(reader, "id");
+				listener.accept(new FullEntity(timestamp, cardId, id, readTags(reader)));
+				break;
+			case "ShowEntity":
+				String shownCardId = reader.getAttributeValue(null, "cardID");
+				int shownEntity = intAttribute(reader, "entity");
+				listener.accept(new ShowEntity(timestamp, shownCardId, shownEntity, readTags(reader)));
+				break;
+			case "ChangeEntity":
+				String changedCardId = reader.getAttributeValue(null, "cardID");
+				int changedEntity = intAttribute(reader, "entity");
+				listener.accept(new ChangeEntity(timestamp, changedCardId, changedEntity, readTags(reader)));
+				break;
+			case "HideEntity":
+				HideEntity hideEntity = new HideEntity(timestamp, intAttribute(reader, "entity"), intAttribute(reader, "zone"));
+				skip(reader);
+				listener.accept(hideEntity);
+				break;
+			case "Choices":
+				emitTimestamp(reader, new Choices(), timestamp, listener);
+				break;
+			case "Options":
+				emitTimestamp(reader, new Options(), timestamp, listener);
+				break;
+			case "SendChoices":
+				emitTimestamp(reader, new SendChoices(), timestamp, listener);
+				break;
+			case "SendOption":
+				emitTimestamp(reader, new SendOption(), timestamp, listener);
+				break;
+			case "MetaData":
+				emitTimestamp(reader, new MetaData(), timestamp, listener);
+				break;
+			case "ChosenEntities":
+				emitTimestamp(reader, new ChosenEntities(), timestamp, listener);
+				break;
+			default:
+				// Not part of the game data
+				skip(reader);
+		}
+	}
+
+	private boolean accepts(XMLStreamReader reader, String name) {
+		if (filter == GameDataFilter.ALL) {
+			return true;
+		}
+		switch (name) {
+			case "TagChange":
+				return filter.acceptsTagChange(intAttribute(reader, "tag"));
+			case "GameEntity":
+			case "Player":
+			case "FullEntity":
+			case "ShowEntity":
+			case "ChangeEntity":
+			case "HideEntity":
+				return filter.acceptsEntities();
+			default:
+				return filter.acceptsActions();
+		}
+	}
+
+	private void readEntity(XMLStreamReader reader, BaseEntity entity, String timestamp) throws XMLStreamException {
+		entity.setTimestamp(timestamp);
+		entity.setId(intAttribute(reader, "id"));
+		entity.setTags(readTags(reader));
+	}
+
+	private List<Tag> readTags(XMLStreamReader reader) throws XMLStreamException {
+		List<Tag> tags = new ArrayList<>();
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				break;
+			}
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				if ("Tag".equals(reader.getLocalName())) {
+					Tag tag = new Tag();
+					tag.setName(intAttribute(reader, "tag"));
+					tag.setValue(intAttribute(reader, "value"));
+					tags.add(tag);
+				}
+				skip(reader);
+			}
+		}
+		return tags;
+	}
+
+	private void emitTimestamp(XMLStreamReader reader, GameData data, String timestamp, Consumer<GameData> listener)
+			throws XMLStreamException {
+		data.setTimestamp(timestamp);
+		skip(reader);
+		listener.accept(data);
+	}
+
+	// Skips the current element, with all its children
+	private void skip(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0 && reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private static int intAttribute(XMLStreamReader reader, String name) {
+		String value = reader.getAttributeValue(null, name);
+		return value == null || value.isEmpty() ? 0 : Integer.parseInt(value.trim());
+	}
+
+	private static XMLInputFactory createFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		// Replays never need external entities, and must not be able to pull them in
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+}
@@ -0,0 +1,153 @@
+package com.zerotoheroes.hsgameparser.replay;
+
+import com.zerotoheroes.hsgameentities.replaydata.GameData;
+import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ChangeEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ShowEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.Tag;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ordered stream of the tags of a replay: the tags of the entities, of their reveals and the tag
+ * changes, in the order they were read. Each tag is an (entity, name, value) triple, plus the kind
+ * of data it came from.
+ * <p>
+ * The tags are kept in parallel int arrays instead of one object per tag, so that neither storing
+ * nor querying a tag allocates anything.
+ * <p>
+ * Not thread-safe: a store belongs to the replay being read.
+ */
+public class TagStore {
+
+	/**
+	 * A tag of the entity itself (full entity, player or game)
+	 */
+	public static final int INITIAL = 0;
+
+	/**
+	 * A tag of a ShowEntity or ChangeEntity
+	 */
+	public static final int REVEAL = 1;
+
+	/**
+	 * A TagChange
+	 */
+	public static final int CHANGE = 2;
+
+	private int[] entities = new int[4096];
+	private int[] names = new int[4096];
+	private int[] values = new int[4096];
+	private byte[] kinds = new byte[4096];
+
+	private int size;
+
+	/**
+	 * Appends the tags of the game data, if it has any
+	 */
+	public void read(GameData data) {
+		if (data instanceof TagChange) {
+			TagChange tagChange = (TagChange) data;
+			add(tagChange.getEntity(), tagChange.getName(), tagChange.getValue(), CHANGE);
+		}
+		else if (data instanceof BaseEntity) {
+			addAll(((BaseEntity) data).getId(), ((BaseEntity) data).getTags(), INITIAL);
+		}
+		else if (data instanceof ShowEntity) {
+			addAll(((ShowEntity) data).getEntity(), ((ShowEntity) data).getTags(), REVEAL);
+		}
+		else if (data instanceof ChangeEntity) {
+			addAll(((ChangeEntity) data).getEntity(), ((ChangeEntity) data).getTags(), REVEAL);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int entity(int index) {
+		return entities[index];
+	}
+
+	public int name(int index) {
+		return names[index];
+	}
+
+	public int value(int index) {
+		return values[index];
+	}
+
+	/**
+	 * {@link #INITIAL}, {@link #REVEAL} or {@link #CHANGE}
+	 */
+	public int kind(int index) {
+		return kinds[index];
+	}
+
+	/**
+	 * Position of the first tag with this entity and name, or -1
+	 */
+	public int indexOf(int entity, int name) {
+		for (int i = 0; i < size; i++) {
+			if (names[i] == name && entities[i] == entity) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Position of the last tag with this entity and name, or -1
+	 */
+	public int lastIndexOf(int entity, int name) {
+		for (int i = size - 1; i >= 0; i--) {
+			if (names[i] == name && entities[i] == entity) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Position of the last tag with this name, at or before the given position, or -1
+	 */
+	public int lastIndexOfName(int name, int from) {
+		for (int i = Math.min(from, size - 1); i >= 0; i--) {
+			if (names[i] == name) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Appends a tag
+	 *
+	 * @return its position in the stream
+	 */
+	protected int add(int entity, int name, int value, int kind) {
+		if (size == entities.length) {
+			int capacity = size * 2;
+			entities = Arrays.copyOf(entities, capacity);
+			names = Arrays.copyOf(names, capacity);
+			values = Arrays.copyOf(values, capacity);
+			kinds = Arrays.copyOf(kinds, capacity);
+		}
+		entities[size] = entity;
+		names[size] = name;
+		values[size] = value;
+		kinds[size] = (byte) kind;
+		return size++;
+	}
+
+	private void addAll(int entity, List<Tag> tags, int kind) {
+		if (tags == null) {
+			return;
+		}
+		for (Tag tag : tags) {
+			add(entity, tag.getName(), tag.getValue(), kind);
+		}
+	}
+}
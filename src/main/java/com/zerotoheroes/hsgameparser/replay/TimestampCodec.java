@@ -0,0 +1,149 @@
+package com.zerotoheroes.hsgameparser.replay;
+
+/**
+ * Reads the timestamps of the game data, without allocating nor throwing. Replays come with two
+ * formats:
+ * <ul>
+ * <li>time of the day, from the logs: {@code 23:50:40.3822150}. Hours may go past 24 when the game
+ * goes past midnight.</li>
+ * <li>ISO date and time with an offset, from hsreplay.net: {@code 2016-10-14T16:07:38.515110-07:00}</li>
+ * </ul>
+ * The instants are the ones the parser has always read (with SimpleDateFormat), so that durations
+ * don't change: the fraction of the time of the day is ignored, and the fraction of the ISO
+ * timestamps is a number of milliseconds, whatever its number of digits.
+ */
+public final class TimestampCodec {
+
+	/**
+	 * Returned for the timestamps that can't be read
+	 */
+	public static final long INVALID = Long.MIN_VALUE;
+
+	private static final long MILLIS_PER_SECOND = 1000;
+
+	private TimestampCodec() {
+	}
+
+	/**
+	 * Milliseconds since the start of the day for the times of the day, since the epoch for the
+	 * ISO timestamps, or {@link #INVALID}
+	 */
+	public static long toMillis(CharSequence timestamp) {
+		if (timestamp == null) {
+			return INVALID;
+		}
+		int length = timestamp.length();
+		int end = digits(timestamp, 0);
+		if (end == 0 || end == length) {
+			return INVALID;
+		}
+		return timestamp.charAt(end) == '-' ? isoToMillis(timestamp, end) : timeToMillis(timestamp, end);
+	}
+
+	// HH:mm:ss, anything after the seconds is ignored
+	private static long timeToMillis(CharSequence timestamp, int hoursEnd) {
+		long hours = number(timestamp, 0, hoursEnd);
+		int minutesEnd = field(timestamp, hoursEnd, ':');
+		int secondsEnd = field(timestamp, minutesEnd, ':');
+		if (hours < 0 || minutesEnd < 0 || secondsEnd < 0) {
+			return INVALID;
+		}
+		long minutes = number(timestamp, hoursEnd + 1, minutesEnd);
+		long seconds = number(timestamp, minutesEnd + 1, secondsEnd);
+		if (minutes < 0 || seconds < 0) {
+			return INVALID;
+		}
+		return ((hours * 60 + minutes) * 60 + seconds) * MILLIS_PER_SECOND;
+	}
+
+	// yyyy-MM-dd'T'HH:mm:ss.SSSSSS followed by Z or +hh:mm
+	private static long isoToMillis(CharSequence timestamp, int yearEnd) {
+		int monthEnd = field(timestamp, yearEnd, '-');
+		int dayEnd = field(timestamp, monthEnd, '-');
+		int hoursEnd = field(timestamp, dayEnd, 'T');
+		int minutesEnd = field(timestamp, hoursEnd, ':');
+		int secondsEnd = field(timestamp, minutesEnd, ':');
+		int fractionEnd = field(timestamp, secondsEnd, '.');
+		if (fractionEnd < 0 || fractionEnd == timestamp.length()) {
+			return INVALID;
+		}
+		long year = number(timestamp, 0, yearEnd);
+		long month = number(timestamp, yearEnd + 1, monthEnd);
+		long day = number(timestamp, monthEnd + 1, dayEnd);
+		long hours = number(timestamp, dayEnd + 1, hoursEnd);
+		long minutes = number(timestamp, hoursEnd + 1, minutesEnd);
+		long seconds = number(timestamp, minutesEnd + 1, secondsEnd);
+		long fraction = number(timestamp, secondsEnd + 1, fractionEnd);
+		long offset = offsetInMinutes(timestamp, fractionEnd);
+		if (year < 0 || month < 1 || month > 12 || day < 0 || hours < 0 || minutes < 0 || seconds < 0
+				|| fraction < 0 || offset == INVALID) {
+			return INVALID;
+		}
+		long localSeconds = ((daysSinceEpoch(year, month, day) * 24 + hours) * 60 + minutes - offset) * 60 + seconds;
+		return localSeconds * MILLIS_PER_SECOND + fraction;
+	}
+
+	// Z, or +hh:mm / -hh:mm, up to the end of the timestamp
+	private static long offsetInMinutes(CharSequence timestamp, int start) {
+		int length = timestamp.length();
+		char sign = timestamp.charAt(start);
+		if (sign == 'Z') {
+			return start + 1 == length ? 0 : INVALID;
+		}
+		if (sign != '+' && sign != '-') {
+			return INVALID;
+		}
+		int hoursEnd = digits(timestamp, start + 1);
+		if (hoursEnd == length || timestamp.charAt(hoursEnd) != ':' || digits(timestamp, hoursEnd + 1) != length) {
+			return INVALID;
+		}
+		long hours = number(timestamp, start + 1, hoursEnd);
+		long minutes = number(timestamp, hoursEnd + 1, length);
+		if (hours < 0 || minutes < 0) {
+			return INVALID;
+		}
+		long offset = hours * 60 + minutes;
+		return sign == '-' ? -offset : offset;
+	}
+
+	// The end of the digits that follow the separator, or -1
+	private static int field(CharSequence timestamp, int separator, char expected) {
+		if (separator < 0 || separator >= timestamp.length() || timestamp.charAt(separator) != expected) {
+			return -1;
+		}
+		int end = digits(timestamp, separator + 1);
+		return end == separator + 1 ? -1 : end;
+	}
+
+	// The end of the digits starting at start
+	private static int digits(CharSequence timestamp, int start) {
+		int index = start;
+		while (index < timestamp.length() && timestamp.charAt(index) >= '0' && timestamp.charAt(index) <= '9') {
+			index++;
+		}
+		return index;
+	}
+
+	// -1 when empty or too long to be a timestamp field
+	private static long number(CharSequence timestamp, int start, int end) {
+		if (end <= start || end - start > 18) {
+			return -1;
+		}
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			value = value * 10 + timestamp.charAt(i) - '0';
+		}
+		return value;
+	}
+
+	// Days from 1970-01-01 in the proleptic Gregorian calendar, days past the end of the month
+	// rolling over to the next ones
+	private static long daysSinceEpoch(long year, long month, long day) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(y, 400);
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+}
@@ -0,0 +1,79 @@
+package com.zerotoheroes.hsgameparser.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * A replay XML to process, with its game mode. The content is only loaded when the replay is
+ * processed.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ReplayInput {
+
+	// Identifies the replay in the results and the logs
+	private final String name;
+
+	private final String gameMode;
+
+	@Getter(AccessLevel.NONE)
+	private final Callable<ByteBuffer> content;
+
+	/**
+	 * The file is memory mapped when the replay is processed
+	 */
+	public static ReplayInput of(Path replayFile, String gameMode) {
+		return new ReplayInput(replayFile.toString(), gameMode, () -> {
+			try (FileChannel channel = FileChannel.open(replayFile, StandardOpenOption.READ)) {
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+		});
+	}
+
+	public static ReplayInput of(String name, ByteBuffer replayXml, String gameMode) {
+		return new ReplayInput(name, gameMode, replayXml::duplicate);
+	}
+
+	/**
+	 * The stream is opened when the replay is processed, and read fully once
+	 */
+	public static ReplayInput of(String name, Callable<InputStream> replayXml, String gameMode) {
+		return new ReplayInput(name, gameMode, () -> {
+			try (InputStream stream = replayXml.call()) {
+				return readFully(stream);
+			}
+		});
+	}
+
+	ByteBuffer open() throws Exception {
+		return content.call();
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	private static ByteBuffer readFully(InputStream stream) throws IOException {
+		byte[] bytes = new byte[Math.max(8192, stream.available())];
+		int length = 0;
+		int read;
+		while ((read = stream.read(bytes, length, bytes.length - length)) != -1) {
+			length += read;
+			if (length == bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+		}
+		return ByteBuffer.wrap(bytes, 0, length);
+	}
+}
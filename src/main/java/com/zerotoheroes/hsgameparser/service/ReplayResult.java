@@ -0,0 +1,39 @@
+package com.zerotoheroes.hsgameparser.service;
+
+import com.zerotoheroes.hsgameparser.amazingplays.GameHighlight;
+import com.zerotoheroes.hsgameparser.metadata.GameMetaData;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Everything the service got out of a replay: its metadata and highlights, or the reason each of them
+ * couldn't be extracted. Both failures are the same when the replay couldn't be loaded at all.
+ */
+@Data
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class ReplayResult {
+
+	private final ReplayInput input;
+
+	private final GameMetaData metaData;
+
+	private final List<GameHighlight> highlights;
+
+	private final Exception metaDataFailure;
+
+	private final Exception highlightsFailure;
+
+	public boolean isSuccess() {
+		return metaDataFailure == null && highlightsFailure == null;
+	}
+
+	/**
+	 * The metadata failure if any, the highlights one otherwise
+	 */
+	public Exception getFailure() {
+		return metaDataFailure != null ? metaDataFailure : highlightsFailure;
+	}
+}
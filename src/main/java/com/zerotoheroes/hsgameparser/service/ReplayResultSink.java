@@ -0,0 +1,11 @@
+package com.zerotoheroes.hsgameparser.service;
+
+/**
+ * Where the results of the service go. Sinks are called from the processing threads, possibly
+ * concurrently. A replay keeps its slot in the service until all the sinks are done with it, so a
+ * slow sink slows down the intake instead of piling up results.
+ */
+public interface ReplayResultSink {
+
+	void accept(ReplayResult result) throws Exception;
+}
@@ -0,0 +1,228 @@
+package com.zerotoheroes.hsgameparser.service;
+
+import com.zerotoheroes.hsgameparser.amazingplays.GameHighlight;
+import com.zerotoheroes.hsgameparser.amazingplays.reader.ReplayReader;
+import com.zerotoheroes.hsgameparser.amazingplays.rules.RuleFactory;
+import com.zerotoheroes.hsgameparser.metadata.GameMetaData;
+import com.zerotoheroes.hsgameparser.metadata.GameParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Embeddable service that extracts the metadata and the highlights of replays, each replay on its
+ * own thread, and hands the results to sinks.
+ * <p>
+ * Replays run on virtual threads when the JVM has them, and on a new (or idle) platform thread
+ * otherwise. At most maxInFlight replays are being processed or waiting for the sinks at any time:
+ * submitting more blocks the caller until a slot frees up, so that slow sinks hold back the intake
+ * instead of exhausting memory.
+ * <p>
+ * The metadata and the highlights are extracted independently: one of them failing doesn't prevent
+ * the sinks from getting the other.
+ */
+@Slf4j
+public class ReplayService implements AutoCloseable {
+
+	private final GameParser gameParser;
+
+	private final ReplayReader replayReader = new ReplayReader();
+
+	private final RuleFactory ruleFactory;
+
+	private final List<ReplayResultSink> sinks;
+
+	private final int maxInFlight;
+
+	private final Semaphore inFlight;
+
+	private final ExecutorService executor = newThreadPerTaskExecutor();
+
+	private volatile boolean closed;
+
+	public ReplayService(GameParser gameParser, RuleFactory ruleFactory, List<ReplayResultSink> sinks, int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("maxInFlight must be at least 1, got " + maxInFlight);
+		}
+		this.gameParser = gameParser;
+		this.ruleFactory = ruleFactory;
+		this.sinks = new ArrayList<>(sinks);
+		this.maxInFlight = maxInFlight;
+		this.inFlight = new Semaphore(maxInFlight);
+	}
+
+	/**
+	 * Queues a replay, waiting for a free slot if needed
+	 *
+	 * @throws IllegalStateException when the service is closed, even while waiting for the slot
+	 */
+	public void submit(ReplayInput input) throws InterruptedException {
+		if (closed) {
+			throw new IllegalStateException("The service is closed");
+		}
+		inFlight.acquire();
+		try {
+			// The executor is shut down before close waits, so it is what decides whether a replay
+			// submitted while closing still gets processed
+			executor.execute(() -> {
+				try {
+					process(input);
+				}
+				finally {
+					inFlight.release();
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			inFlight.release();
+			throw new IllegalStateException("The service is closed", e);
+		}
+		catch (RuntimeException e) {
+			inFlight.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Submits all the .xml files of the directory (not its sub-directories)
+	 *
+	 * @return how many replays were submitted
+	 */
+	public int submitDirectory(Path directory, String gameMode) throws IOException, InterruptedException {
+		int count = 0;
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Iterator<Path> it = files.filter(file -> file.toString().endsWith(".xml")).sorted().iterator(); it.hasNext(); ) {
+				submit(ReplayInput.of(it.next(), gameMode));
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Submits the replays taken from the queue, until the service is closed or the calling thread is
+	 * interrupted. Whatever feeds the queue (a socket listener, a message consumer...) is held back
+	 * by the queue capacity when the service is busy.
+	 */
+	public void consume(BlockingQueue<ReplayInput> queue) throws InterruptedException {
+		while (!closed) {
+			ReplayInput input = queue.poll(100, TimeUnit.MILLISECONDS);
+			if (input != null) {
+				try {
+					submit(input);
+				}
+				catch (IllegalStateException e) {
+					if (!closed) {
+						throw e;
+					}
+					log.warn("The service was closed, dropping " + input);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits for the replays that have been submitted so far to be processed
+	 */
+	public void awaitIdle() throws InterruptedException {
+		inFlight.acquire(maxInFlight);
+		inFlight.release(maxInFlight);
+	}
+
+	/**
+	 * Stops taking replays, and waits for the ones in flight. When the calling thread is interrupted,
+	 * the replays in flight are interrupted too, and the interrupt flag is restored.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void process(ReplayInput input) {
+		ByteBuffer replayXml;
+		try {
+			// Both passes read the same buffer, so the replay is only loaded once
+			replayXml = input.open();
+		}
+		catch (Exception e) {
+			log.debug("Could not load " + input, e);
+			publish(new ReplayResult(input, null, Collections.emptyList(), e, e));
+			return;
+		}
+
+		GameMetaData metaData = null;
+		Exception metaDataFailure = null;
+		try {
+			metaData = gameParser.getMetaData(replayXml, input.getGameMode());
+		}
+		catch (Exception e) {
+			log.debug("Could not extract the metadata of " + input, e);
+			metaDataFailure = e;
+		}
+
+		List<GameHighlight> highlights = new ArrayList<>();
+		Exception highlightsFailure = null;
+		try {
+			replayReader.read(replayXml, ruleFactory.create(highlights::add));
+		}
+		catch (Exception e) {
+			log.debug("Could not extract the highlights of " + input, e);
+			highlightsFailure = e;
+			highlights.clear();
+		}
+		publish(new ReplayResult(input, metaData, Collections.unmodifiableList(highlights), metaDataFailure,
+				highlightsFailure));
+	}
+
+	private void publish(ReplayResult result) {
+		for (ReplayResultSink sink : sinks) {
+			try {
+				sink.accept(result);
+			}
+			catch (Exception e) {
+				log.error("Sink " + sink + " failed on " + result.getInput(), e);
+			}
+		}
+	}
+
+	/**
+	 * Virtual threads on Java 21+, looked up at runtime since the parser still targets Java 8
+	 */
+	static ExecutorService newThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException e) {
+			log.debug("No virtual threads, falling back to platform threads");
+			AtomicInteger count = new AtomicInteger();
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, "replay-service-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
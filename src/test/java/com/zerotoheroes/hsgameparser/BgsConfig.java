@@ -17,15 +17,15 @@ public class BgsConfig implements WithAssertions {
     @Test
     public void generate_achievements() throws Exception {
         CardsList cardsList = CardsList.create();
-        List<DbCard> heroCards = cardsList.getDbCards().stream()
-                .filter(card -> card.getId().startsWith("TB_BaconShop_HERO_"))
+        List<DbCard> heroCards = cardsList.query()
+                .idStartingWith("TB_BaconShop_HERO_")
+                .type("Hero")
                 .filter(card -> !Arrays.asList(
                         "TB_BaconShop_HERO_KelThuzad", // Kel'Thuzad
                         "TB_BaconShop_HERO_PH" // BaconPHhero
                 )
                         .contains(card.getId()))
-                .filter(card -> "Hero".equals(card.getType()))
-                .collect(Collectors.toList());
+                .list();
         List<String> result = heroCards.stream()
                 .map(card -> BattlegroundsHero.builder()
                         .cardId(card.getId())
@@ -1,23 +1,29 @@
 package com.zerotoheroes.hsgameparser;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.Scanner;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import com.zerotoheroes.hsgameconverter.ReplayConverter;
 import com.zerotoheroes.hsgameentities.replaydata.HearthstoneReplay;
 
 public class GameLoader {
 
-	@SuppressWarnings("resource")
 	public HearthstoneReplay load(String xmlName) throws Exception {
-		String xml = new Scanner(getClass().getResourceAsStream("replayxml/" + xmlName), "UTF-8").useDelimiter("\\A")
-				.next();
-		InputStream stream = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
-		ReplayConverter converter = new ReplayConverter();
-		HearthstoneReplay replay = converter.replayFromXml(stream);
-		return replay;
+		try (InputStream stream = stream(xmlName)) {
+			ReplayConverter converter = new ReplayConverter();
+			HearthstoneReplay replay = converter.replayFromXml(stream);
+			return replay;
+		}
+	}
+
+	public InputStream stream(String xmlName) {
+		return getClass().getResourceAsStream("replayxml/" + xmlName);
+	}
+
+	public Path path(String xmlName) throws URISyntaxException {
+		return Paths.get(getClass().getResource("replayxml/" + xmlName).toURI());
 	}
 
 }
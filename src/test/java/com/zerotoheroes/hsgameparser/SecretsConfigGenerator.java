@@ -21,11 +21,10 @@ public class SecretsConfigGenerator implements WithAssertions {
     @Test
     public void generate_config() throws Exception {
         CardsList cardsList = CardsList.create();
-        List<DbCard> allSecrets = cardsList.getDbCards().stream()
-                .filter(card -> card.getMechanics() != null)
-                .filter(card -> card.getMechanics().contains("SECRET"))
-                .filter(card -> card.isCollectible())
-                .collect(Collectors.toList());
+        List<DbCard> allSecrets = cardsList.query()
+                .mechanic("SECRET")
+                .collectible()
+                .list();
         SecretsConfig wildSecrets = SecretsConfig.builder()
                 .mode("wild")
                 .secrets(allSecrets.stream()
@@ -62,11 +61,10 @@ public class SecretsConfigGenerator implements WithAssertions {
     @Test
     public void test() throws Exception {
         CardsList cardsList = CardsList.create();
-        List<DbCard> allSecrets = cardsList.getDbCards().stream()
-                .filter(card -> card.getMechanics() != null)
-                .filter(card -> card.getMechanics().contains("SECRET"))
-                .filter(card -> card.isCollectible())
-                .collect(Collectors.toList());
+        List<DbCard> allSecrets = cardsList.query()
+                .mechanic("SECRET")
+                .collectible()
+                .list();
         SecretsConfig wildSecrets = SecretsConfig.builder()
                 .mode("wild")
                 .secrets(allSecrets.stream()
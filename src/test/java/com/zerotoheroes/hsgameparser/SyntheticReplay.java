@@ -0,0 +1,277 @@
+package com.zerotoheroes.hsgameparser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.zerotoheroes.hsgameconverter.ReplayConverter;
+import com.zerotoheroes.hsgameentities.enums.CardType;
+import com.zerotoheroes.hsgameentities.enums.GameTag;
+import com.zerotoheroes.hsgameentities.enums.PlayState;
+import com.zerotoheroes.hsgameentities.enums.Zone;
+import com.zerotoheroes.hsgameentities.replaydata.HearthstoneReplay;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Generates replays of any size, to see how parsing scales past the test fixtures.
+ * <p>
+ * The games are structurally valid two players games: the game entity, both players and their
+ * heroes, then the cards, all in the deck. Each turn starts with a TURN change of the game entity,
+ * followed by blocks nested {@code actionDepth} deep, the tag changes of the turn being spread
+ * over all the levels. Some of the changes reveal a card, the others are random changes of zone,
+ * damage, attack or health of random cards. The first player wins once all the turns are played.
+ * <p>
+ * The same settings (seed included) always generate the same replay.
+ */
+@Getter
+@Builder
+public class SyntheticReplay {
+
+	private static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
+
+	private static final int GAME_ENTITY = 1;
+	private static final int FIRST_PLAYER = 2;
+	private static final int SECOND_PLAYER = 3;
+	private static final int FIRST_HERO = 4;
+	private static final int SECOND_HERO = 5;
+	private static final int FIRST_CARD = 6;
+
+	// Tags changed on the cards during the turns
+	private static final GameTag[] CHANGED_TAGS = {
+			GameTag.ZONE, GameTag.PREDAMAGE, GameTag.DAMAGE, GameTag.ATK, GameTag.HEALTH, GameTag.EXHAUSTED };
+
+	private final int turns;
+
+	// Cards, not counting the game, players and heroes
+	private final int entities;
+
+	private final int tagChangesPerTurn;
+
+	private final int actionDepth;
+
+	private final long seed;
+
+	/**
+	 * About the size of the largest fixtures (2.5 MB), times the given scale: more turns and more cards
+	 */
+	public static SyntheticReplay scaled(int scale) {
+		return builder()
+				.turns(30 * scale)
+				.entities(120 * scale)
+				.build();
+	}
+
+	public byte[] toXml() throws XMLStreamException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(out);
+		return out.toByteArray();
+	}
+
+	public InputStream stream() throws XMLStreamException {
+		return new ByteArrayInputStream(toXml());
+	}
+
+	/**
+	 * The replay built from the generated XML, the same way the fixtures are loaded
+	 */
+	public HearthstoneReplay toReplay() throws Exception {
+		try (InputStream stream = stream()) {
+			return new ReplayConverter().replayFromXml(stream);
+		}
+	}
+
+	public void write(OutputStream out) throws XMLStreamException {
+		XMLStreamWriter writer = FACTORY.createXMLStreamWriter(out, "UTF-8");
+		new Generator(writer).write();
+		writer.close();
+	}
+
+	// State of a single generation
+	private class Generator {
+
+		private final XMLStreamWriter writer;
+
+		private final Random random = new Random(seed);
+
+		// In milliseconds since midnight
+		private long time = 10 * 3600 * 1000;
+
+		// Cards revealed so far
+		private int shownCards;
+
+		Generator(XMLStreamWriter writer) {
+			this.writer = writer;
+		}
+
+		void write() throws XMLStreamException {
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeStartElement("HSReplay");
+			writer.writeStartElement("Game");
+			writer.writeAttribute("ts", timestamp());
+			writer.writeAttribute("type", "7");
+			writer.writeAttribute("gameType", "7");
+			writer.writeAttribute("formatType", "2");
+
+			writer.writeStartElement("GameEntity");
+			writer.writeAttribute("id", String.valueOf(GAME_ENTITY));
+			tag(GameTag.CARDTYPE, CardType.GAME.getIntValue());
+			tag(GameTag.ZONE, Zone.PLAY.getIntValue());
+			tag(GameTag.ENTITY_ID, GAME_ENTITY);
+			writer.writeEndElement();
+
+			player(FIRST_PLAYER, 1, FIRST_HERO, "144115198130930503", "Synthetic#1");
+			player(SECOND_PLAYER, 2, SECOND_HERO, "0", "Synthetic#2");
+			hero(FIRST_HERO, 1, "HERO_08");
+			hero(SECOND_HERO, 2, "HERO_01");
+			for (int i = 0; i < entities; i++) {
+				card(FIRST_CARD + i);
+			}
+
+			for (int turn = 1; turn <= turns; turn++) {
+				turn(turn);
+			}
+
+			tagChange(FIRST_PLAYER, GameTag.PLAYSTATE, PlayState.WON.getIntValue());
+			tagChange(SECOND_PLAYER, GameTag.PLAYSTATE, PlayState.LOST.getIntValue());
+			tagChange(FIRST_PLAYER, GameTag.GOLD_REWARD_STATE, 1);
+
+			writer.writeEndElement();
+			writer.writeEndElement();
+			writer.writeEndDocument();
+		}
+
+		private void player(int id, int playerId, int hero, String accountHi, String name) throws XMLStreamException {
+			writer.writeStartElement("Player");
+			writer.writeAttribute("id", String.valueOf(id));
+			writer.writeAttribute("accountHi", accountHi);
+			writer.writeAttribute("accountLo", accountHi);
+			writer.writeAttribute("playerID", String.valueOf(playerId));
+			writer.writeAttribute("name", name);
+			tag(GameTag.CONTROLLER, playerId);
+			tag(GameTag.CARDTYPE, CardType.PLAYER.getIntValue());
+			tag(GameTag.HERO_ENTITY, hero);
+			tag(GameTag.ZONE, Zone.PLAY.getIntValue());
+			tag(GameTag.ENTITY_ID, id);
+			tag(GameTag.FIRST_PLAYER, playerId == 1 ? 1 : 0);
+			writer.writeEndElement();
+		}
+
+		private void hero(int id, int controller, String cardId) throws XMLStreamException {
+			writer.writeStartElement("FullEntity");
+			writer.writeAttribute("ts", timestamp());
+			writer.writeAttribute("id", String.valueOf(id));
+			writer.writeAttribute("cardID", cardId);
+			tag(GameTag.CONTROLLER, controller);
+			tag(GameTag.CARDTYPE, CardType.HERO.getIntValue());
+			tag(GameTag.HEALTH, 30);
+			tag(GameTag.ZONE, Zone.PLAY.getIntValue());
+			tag(GameTag.ENTITY_ID, id);
+			writer.writeEndElement();
+		}
+
+		// Unknown until revealed
+		private void card(int id) throws XMLStreamException {
+			writer.writeStartElement("FullEntity");
+			writer.writeAttribute("ts", timestamp());
+			writer.writeAttribute("id", String.valueOf(id));
+			tag(GameTag.CONTROLLER, controller(id));
+			tag(GameTag.ZONE, Zone.DECK.getIntValue());
+			tag(GameTag.ENTITY_ID, id);
+			writer.writeEndElement();
+		}
+
+		private void turn(int turn) throws XMLStreamException {
+			writer.writeStartElement("Block");
+			writer.writeAttribute("ts", timestamp());
+			writer.writeAttribute("entity", String.valueOf(GAME_ENTITY));
+			writer.writeAttribute("type", "5");
+			tagChange(GAME_ENTITY, GameTag.TURN, turn);
+			writer.writeEndElement();
+
+			// Spread the changes over all the levels, the deepest one taking what's left
+			int depth = Math.max(actionDepth, 1);
+			int perLevel = tagChangesPerTurn / depth;
+			for (int level = 0; level < depth; level++) {
+				writer.writeStartElement("Block");
+				writer.writeAttribute("ts", timestamp());
+				writer.writeAttribute("entity", String.valueOf(randomCard()));
+				writer.writeAttribute("type", level == 0 ? "7" : "3");
+				int changes = level == depth - 1 ? tagChangesPerTurn - perLevel * level : perLevel;
+				for (int i = 0; i < changes; i++) {
+					change();
+				}
+			}
+			for (int level = 0; level < depth; level++) {
+				writer.writeEndElement();
+			}
+		}
+
+		private void change() throws XMLStreamException {
+			// One change in ten reveals a card
+			if (shownCards < entities && random.nextInt(10) == 0) {
+				int id = FIRST_CARD + shownCards++;
+				writer.writeStartElement("ShowEntity");
+				writer.writeAttribute("ts", timestamp());
+				writer.writeAttribute("cardID", "CS2_" + (100 + random.nextInt(100)));
+				writer.writeAttribute("entity", String.valueOf(id));
+				tag(GameTag.CONTROLLER, controller(id));
+				tag(GameTag.CARDTYPE, CardType.MINION.getIntValue());
+				tag(GameTag.ZONE, Zone.HAND.getIntValue());
+				tag(GameTag.ATK, random.nextInt(10));
+				tag(GameTag.HEALTH, 1 + random.nextInt(10));
+				writer.writeEndElement();
+				return;
+			}
+			GameTag tag = CHANGED_TAGS[random.nextInt(CHANGED_TAGS.length)];
+			int value = tag == GameTag.ZONE ? 1 + random.nextInt(6) : random.nextInt(12);
+			tagChange(randomCard(), tag, value);
+		}
+
+		private void tagChange(int entity, GameTag tag, int value) throws XMLStreamException {
+			writer.writeEmptyElement("TagChange");
+			writer.writeAttribute("ts", timestamp());
+			writer.writeAttribute("entity", String.valueOf(entity));
+			writer.writeAttribute("tag", String.valueOf(tag.getIntValue()));
+			writer.writeAttribute("value", String.valueOf(value));
+		}
+
+		private void tag(GameTag tag, int value) throws XMLStreamException {
+			writer.writeEmptyElement("Tag");
+			writer.writeAttribute("tag", String.valueOf(tag.getIntValue()));
+			writer.writeAttribute("value", String.valueOf(value));
+		}
+
+		private int randomCard() {
+			return entities == 0 ? FIRST_HERO + random.nextInt(2) : FIRST_CARD + random.nextInt(entities);
+		}
+
+		private int controller(int card) {
+			return 1 + card % 2;
+		}
+
+		// Same format as the logs, one millisecond after the previous data
+		private String timestamp() {
+			long now = time++;
+			return String.format("%02d:%02d:%02d.%03d0000",
+					now / 3600000 % 24, now / 60000 % 60, now / 1000 % 60, now % 1000);
+		}
+	}
+
+	public static class SyntheticReplayBuilder {
+
+		// Defaults, for what the caller doesn't set
+		private int turns = 30;
+		private int entities = 120;
+		private int tagChangesPerTurn = 1200;
+		private int actionDepth = 3;
+		private long seed = 1;
+	}
+}
@@ -0,0 +1,82 @@
+package com.zerotoheroes.hsgameparser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import com.zerotoheroes.hsgameentities.replaydata.GameData;
+import com.zerotoheroes.hsgameentities.replaydata.HearthstoneReplay;
+import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+import com.zerotoheroes.hsgameparser.amazingplays.reader.ReplayReader;
+import com.zerotoheroes.hsgameparser.amazingplays.rules.AbstractGameEventsAdapter;
+import com.zerotoheroes.hsgameparser.db.CardsList;
+import com.zerotoheroes.hsgameparser.metadata.GameMetaData;
+import com.zerotoheroes.hsgameparser.metadata.GameParser;
+import com.zerotoheroes.hsgameparser.replay.ReplayStreamReader;
+
+public class TestSyntheticReplay implements WithAssertions {
+
+	@Test
+	public void generated_games_can_be_parsed() throws Exception {
+		SyntheticReplay synthetic = SyntheticReplay.builder()
+				.turns(13)
+				.entities(50)
+				.tagChangesPerTurn(40)
+				.actionDepth(4)
+				.build();
+
+		GameMetaData meta = new GameParser(CardsList.create()).getMetaData(synthetic.stream(), null);
+		assertThat(meta.getNumberOfTurns()).isEqualTo(7);
+		assertThat(meta.getResult()).isEqualTo("won");
+		assertThat(meta.getPlayCoin()).isEqualTo("play");
+		assertThat(meta.getPlayerName()).isEqualTo("Synthetic#1");
+		assertThat(meta.getPlayerCardId()).isEqualTo("HERO_08");
+		assertThat(meta.getOpponentCardId()).isEqualTo("HERO_01");
+
+		List<Integer> turns = new ArrayList<>();
+		List<Integer> damages = new ArrayList<>();
+		boolean[] gameEnd = new boolean[1];
+		new ReplayReader().read(synthetic.stream(), new AbstractGameEventsAdapter(highlight -> {}) {
+			@Override
+			public void turnStart(int turnNumber) {
+				turns.add(turnNumber);
+			}
+
+			@Override
+			public void damageTaken(BaseEntity entity, int damage) {
+				damages.add(damage);
+			}
+
+			@Override
+			public void gameEnd() {
+				gameEnd[0] = true;
+			}
+		});
+		assertThat(turns).hasSize(13);
+		assertThat(damages).isNotEmpty();
+		assertThat(gameEnd[0]).isTrue();
+	}
+
+	@Test
+	public void same_settings_generate_the_same_game() throws Exception {
+		SyntheticReplay synthetic = SyntheticReplay.scaled(1);
+		assertThat(synthetic.toXml()).isEqualTo(SyntheticReplay.scaled(1).toXml());
+		assertThat(synthetic.toXml()).isNotEqualTo(SyntheticReplay.builder().seed(2).build().toXml());
+
+		// Streamed the same way as when the replay is built first
+		HearthstoneReplay replay = synthetic.toReplay();
+		List<GameData> built = new ArrayList<>();
+		new ReplayStreamReader().read(replay, built::add);
+		List<GameData> streamed = new ArrayList<>();
+		new ReplayStreamReader().read(synthetic.stream(), streamed::add);
+		assertThat(streamed).hasSameSizeAs(built);
+	}
+
+	@Test
+	public void size_grows_with_the_scale() throws Exception {
+		int size = SyntheticReplay.scaled(1).toXml().length;
+		assertThat(SyntheticReplay.scaled(10).toXml().length).isBetween(9 * size, 11 * size);
+	}
+}
@@ -331,8 +331,9 @@ public class BattlegroundsAchievements implements WithAssertions {
 
 	private List<RawAchievement> buildHeroFinishes() throws Exception {
 		CardsList cardsList = CardsList.create();
-		List<DbCard> heroCards = cardsList.getDbCards().stream()
-				.filter(card -> card.getId().startsWith("TB_BaconShop_HERO_"))
+		List<DbCard> heroCards = cardsList.query()
+				.idStartingWith("TB_BaconShop_HERO_")
+				.type("Hero")
 				.filter(card -> !Arrays.asList(
 						"TB_BaconShop_HERO_KelThuzad", // Kel'Thuzad
 						"TB_BaconShop_HERO_PH", // BaconPHhero
@@ -349,8 +350,7 @@ public class BattlegroundsAchievements implements WithAssertions {
 //						"TB_BaconShop_HERO_38" // Mukla
 				)
 						.contains(card.getId()))
-				.filter(card -> "Hero".equals(card.getType()))
-				.collect(Collectors.toList());
+				.list();
 		List<RawAchievement> result = heroCards.stream()
 				.map(hero -> buildHeroFinishes(hero))
 				.flatMap(List::stream)
@@ -2,16 +2,26 @@ package com.zerotoheroes.hsgameparser.amazingplays;
 
 import static org.junit.Assert.*;
 
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import com.zerotoheroes.hsgameentities.replaydata.HearthstoneReplay;
+import com.zerotoheroes.hsgameentities.replaydata.entities.FullEntity;
 import com.zerotoheroes.hsgameparser.GameLoader;
 import com.zerotoheroes.hsgameparser.amazingplays.reader.ReplayReader;
+import com.zerotoheroes.hsgameparser.amazingplays.rules.AbstractGameEventsAdapter;
 import com.zerotoheroes.hsgameparser.amazingplays.rules.MostDamageDealtRule;
+import com.zerotoheroes.hsgameparser.amazingplays.rules.RuleFactory;
 
 public class TestRuleHighlights {
 
@@ -28,6 +38,119 @@ public class TestRuleHighlights {
 
 		HearthstoneReplay replay = gameLoader.load("worgen otk 32 dmg.xml");
 
+		replayReader = new ReplayReader(new CompositeGameEvents(mostDamageDealt()));
+
+		replayReader.read(replay);
+	}
+
+	@Test
+	public void testStreamedHighlights() throws Exception {
+
+		replayReader = new ReplayReader(new CompositeGameEvents(mostDamageDealt()));
+
+		try (InputStream stream = gameLoader.stream("worgen otk 32 dmg.xml")) {
+			replayReader.read(stream);
+		}
+	}
+
+	@Test
+	public void testSharedReader() throws Exception {
+
+		ReplayReader sharedReader = new ReplayReader();
+		RuleFactory ruleFactory = new RuleFactory(30);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<List<GameHighlight>>> replays = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				replays.add(executor.submit(() -> {
+					List<GameHighlight> highlights = new ArrayList<>();
+					try (InputStream stream = gameLoader.stream("worgen otk 32 dmg.xml")) {
+						sharedReader.read(stream, ruleFactory.create(highlights::add));
+					}
+					return highlights;
+				}));
+			}
+			for (Future<List<GameHighlight>> replay : replays) {
+				List<GameHighlight> highlights = replay.get();
+				assertEquals("one highlight per game", 2, highlights.size());
+				assertEquals("invalid maximum damage computed", "31", highlights.get(1).getData());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testDamagePerEntity() throws Exception {
+
+		List<GameHighlight> highlights = new ArrayList<>();
+		List<Integer> turns = new ArrayList<>();
+		GameEvents events = new CompositeGameEvents(Arrays.asList(
+				new MostDamageDealtRule(highlights::add).configure(5),
+				new AbstractGameEventsAdapter(highlights::add) {
+					@Override
+					public void turnStart(int turnNumber) {
+						turns.add(turnNumber);
+					}
+				}));
+
+		FullEntity hero = new FullEntity("ts", "HERO_01", 64, Collections.emptyList());
+		FullEntity minion = new FullEntity("ts", "EX1_001", 65, Collections.emptyList());
+		events.turnStart(1);
+		events.damageTaken(hero, 3);
+		events.damageTaken(minion, 4);
+		events.damageTaken(hero, 3);
+		events.damageTaken(null, 5);
+		events.healSelf(2);
+		events.turnStart(2);
+		events.damageTaken(minion, 4);
+		events.gameEnd();
+
+		assertEquals(EnumSet.of(GameEventType.TURN_START, GameEventType.GAME_END, GameEventType.DAMAGE_TAKEN),
+				events.getInterests());
+		assertEquals(Arrays.asList(1, 2), turns);
+		assertEquals(2, highlights.size());
+		assertEquals("6", highlights.get(0).getData());
+		assertEquals("5", highlights.get(1).getData());
+		assertEquals(1, highlights.get(1).getTurn());
+	}
+
+	@Test
+	public void testProfiledRules() throws Exception {
+
+		List<GameHighlight> highlights = new ArrayList<>();
+		RuleProfiler profiler = new RuleProfiler();
+		GameEvents events = new RuleFactory(30).create(highlights::add, profiler);
+		try (InputStream stream = gameLoader.stream("worgen otk 32 dmg.xml")) {
+			new ReplayReader().read(stream, events);
+		}
+
+		// Same highlights as without the profiler
+		assertEquals(2, highlights.size());
+		assertEquals("31", highlights.get(1).getData());
+		assertEquals(new RuleFactory(30).create(highlights::add).getInterests(), events.getInterests());
+
+		List<ProfiledGameEvents> profiles = profiler.getProfiles();
+		assertEquals(2, profiles.size());
+		ProfiledGameEvents mostDamageDealt = profiles.get(1);
+		assertEquals("MostDamageDealtRule", mostDamageDealt.getName());
+		assertTrue(mostDamageDealt.getCalls(GameEventType.DAMAGE_TAKEN) > 0);
+		assertEquals(1, mostDamageDealt.getCalls(GameEventType.GAME_END));
+		assertEquals(0, mostDamageDealt.getCalls(GameEventType.HEAL_SELF));
+		assertTrue(mostDamageDealt.getTotalNanos() > 0);
+		// The tests run on HotSpot, which measures the allocations
+		assertTrue(ProfiledGameEvents.isAllocationTracked());
+		assertEquals(mostDamageDealt.getCalls(GameEventType.DAMAGE_TAKEN) + mostDamageDealt.getCalls(GameEventType.TURN_START) + 1,
+				mostDamageDealt.getTotalCalls());
+
+		String report = profiler.report();
+		assertTrue(report.contains("MostDamageDealtRule"));
+		assertTrue(report.contains("BiggestHealRule"));
+		assertTrue(report.contains("DAMAGE_TAKEN"));
+	}
+
+	private List<GameEvents> mostDamageDealt() {
 		GameHighlightListener aggregator = new GameHighlightListener() {
 
 			@Override
@@ -39,9 +162,6 @@ public class TestRuleHighlights {
 
 		List<GameEvents> events = new ArrayList<>();
 		events.add(new MostDamageDealtRule(aggregator).configure(30));
-
-		replayReader = new ReplayReader(new CompositeGameEvents(events));
-
-		replayReader.read(replay);
+		return events;
 	}
 }
@@ -0,0 +1,143 @@
+package com.zerotoheroes.hsgameparser.db;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestCardsList implements WithAssertions {
+
+	private CardsList cardsList;
+
+	@Before
+	public void setup() {
+		cardsList = new CardsList(Arrays.asList(
+				card("HERO_09", 813, "Priest", "Hero"),
+				card("CS2_029", 315, "Mage", "Spell"),
+				card("CS2_029", 9999, "Neutral", "Minion")));
+	}
+
+	@Test
+	public void finds_cards_by_id() {
+		assertThat(cardsList.findDbCard("CS2_029").getDbfId()).isEqualTo(315);
+		assertThat(cardsList.findDbCard("cs2_029")).isNull();
+		assertThat(cardsList.findDbCard("unknown")).isNull();
+		assertThat(cardsList.findDbCard(null)).isNull();
+	}
+
+	@Test
+	public void finds_cards_by_id_ignoring_case() {
+		assertThat(cardsList.findDbCardIgnoreCase("hero_09").getPlayerClass()).isEqualTo("Priest");
+		assertThat(cardsList.findDbCardIgnoreCase("Cs2_029").getDbfId()).isEqualTo(315);
+	}
+
+	@Test
+	public void finds_cards_by_dbf_id() {
+		assertThat(cardsList.dbCardFromDbfId(813).getId()).isEqualTo("HERO_09");
+		assertThat(cardsList.dbCardFromDbfId(9999).getPlayerClass()).isEqualTo("Neutral");
+		assertThat(cardsList.dbCardFromDbfId(1)).isNull();
+	}
+
+	@Test
+	public void empty_list_finds_nothing() {
+		CardsList empty = new CardsList();
+		assertThat(empty.getDbCards()).isEmpty();
+		assertThat(empty.findDbCard("CS2_029")).isNull();
+		assertThat(empty.dbCardFromDbfId(315)).isNull();
+	}
+
+	@Test
+	public void streams_cards_and_applies_filter() throws Exception {
+		String json = "[" +
+				"{\"id\": \"CS2_029\", \"dbfId\": 315, \"collectible\": true, \"mechanics\": [\"SECRET\"], " +
+				"\"unknown\": {\"nested\": [1, 2]}}," +
+				"{\"id\": \"CS2_029e\", \"dbfId\": 316}" +
+				"]";
+
+		List<DbCard> all = CardsList.readCards(stream(json), card -> true);
+		assertThat(all).extracting(DbCard::getId).containsExactly("CS2_029", "CS2_029e");
+		assertThat(all.get(0).getMechanics()).isEqualTo(Arrays.asList("SECRET"));
+
+		List<DbCard> collectible = CardsList.readCards(stream(json), DbCard::isCollectible);
+		assertThat(collectible).extracting(DbCard::getDbfId).containsExactly(315);
+	}
+
+	@Test
+	public void queries_cards_through_indexes() {
+		DbCard secret = card("EX1_287", 1658, "MAGE", "Spell");
+		secret.setMechanics(Arrays.asList("SECRET"));
+		secret.setCollectible(true);
+		secret.setSet("EXPERT1");
+		secret.setCost(3);
+		DbCard heroicSecret = card("DALA_123", 5000, "MAGE", "Spell");
+		heroicSecret.setMechanics(Arrays.asList("SECRET", "DUNGEON_PASSIVE_BUFF"));
+		heroicSecret.setSet("DALARAN");
+		heroicSecret.setCost(0);
+		DbCard bgHero = card("TB_BaconShop_HERO_15", 58021, "NEUTRAL", "Hero");
+		DbCard bgPlaceholder = card("TB_BaconShop_HERO_PH", 59000, "NEUTRAL", "Hero");
+		DbCard bgPower = card("TB_BaconShop_HP_001", 58022, "NEUTRAL", "Hero_power");
+		CardsList cards = new CardsList(Arrays.asList(secret, heroicSecret, bgHero, bgPlaceholder, bgPower));
+
+		assertThat(cards.query().mechanic("secret").collectible().list()).isEqualTo(Arrays.asList(secret));
+		assertThat(cards.query().mechanic("SECRET").withoutMechanic("DUNGEON_PASSIVE_BUFF").list()).isEqualTo(Arrays.asList(secret));
+		assertThat(cards.query().playerClass("mage").set("dalaran", "EXPERT1").cost(0, 2).list()).isEqualTo(Arrays.asList(heroicSecret));
+		assertThat(cards.query().idStartingWith("TB_BaconShop_HERO_").type("Hero").list())
+				.isEqualTo(Arrays.asList(bgHero, bgPlaceholder));
+		assertThat(cards.query().idStartingWith("TB_BaconShop_HERO_")
+				.filter(card -> !card.getId().endsWith("_PH"))
+				.count()).isEqualTo(1);
+		assertThat(cards.query().idStartingWith("TB_BaconShop_H").count()).isEqualTo(3);
+		assertThat(cards.query().idStartingWith("ZZZ").list()).isEmpty();
+		// Ids are case-sensitive, unlike the other criteria
+		assertThat(cards.query().idStartingWith("tb_baconshop_hero_").list()).isEmpty();
+		assertThat(cards.query().type("hero").count()).isEqualTo(2);
+		assertThat(cards.query().type("Minion").list()).isEmpty();
+		assertThat(cards.query().count()).isEqualTo(5);
+	}
+
+	@Test
+	public void queries_cards_through_text_index() {
+		DbCard fireball = card("CS2_029", 315, "MAGE", "Spell");
+		fireball.setName("Fireball");
+		fireball.setText("Deal $6 damage.");
+		DbCard imp = card("EX1_597", 1090, "WARLOCK", "Minion");
+		imp.setName("Imp Master");
+		imp.setText("At the end of your turn, deal 1 damage to this minion and <b>summon</b> a 1/1 Imp.");
+		DbCard wisp = card("CS2_231", 179, "NEUTRAL", "Minion");
+		wisp.setName("Wisp");
+		CardsList cards = new CardsList(Arrays.asList(fireball, imp, wisp));
+
+		assertThat(cards.query().textWord("SUMMON").list()).isEqualTo(Arrays.asList(imp));
+		assertThat(cards.query().textWord("summ").count()).isEqualTo(0);
+		assertThat(cards.query().textWordStartingWith("dam").count()).isEqualTo(2);
+		assertThat(cards.query().textContaining("ummo").list()).isEqualTo(Arrays.asList(imp));
+		assertThat(cards.query().textContaining("deal 6 dam").list()).isEqualTo(Arrays.asList(fireball));
+		assertThat(cards.query().textContaining("1/1 imp.").list()).isEqualTo(Arrays.asList(imp));
+		assertThat(cards.query().textWordCount(0, 3).list()).isEqualTo(Arrays.asList(fireball, wisp));
+		assertThat(cards.query().textWordCount(8, Integer.MAX_VALUE).list()).isEqualTo(Arrays.asList(imp));
+		// 1/1 is two words, like for the word queries
+		assertThat(cards.query().textWordCount(18, 18).list()).isEqualTo(Arrays.asList(imp));
+		assertThat(cards.query().nameWithoutLetters("e").list()).isEqualTo(Arrays.asList(wisp));
+		assertThat(cards.query().nameWithLetters("IP").list()).isEqualTo(Arrays.asList(imp, wisp));
+		assertThat(cards.query().nameWord("master").type("Minion").list()).isEqualTo(Arrays.asList(imp));
+		assertThat(cards.query().nameContaining("ball").list()).isEqualTo(Arrays.asList(fireball));
+	}
+
+	private static InputStream stream(String json) {
+		return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static DbCard card(String id, int dbfId, String playerClass, String type) {
+		DbCard card = new DbCard();
+		card.setId(id);
+		card.setDbfId(dbfId);
+		card.setPlayerClass(playerClass);
+		card.setType(type);
+		return card;
+	}
+}
@@ -0,0 +1,87 @@
+package com.zerotoheroes.hsgameparser.db;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class TestCardsListRegistry implements WithAssertions {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void loads_once_and_reloads_when_file_changes() throws Exception {
+		Path cardsFile = folder.newFile("cards.json").toPath();
+		write(cardsFile, "[{\"id\": \"CS2_029\", \"dbfId\": 315}]", 1000);
+		CardsListRegistry registry = new CardsListRegistry(cardsFile);
+
+		CardsList first = registry.get();
+		assertThat(first.findDbCard("CS2_029")).isNotNull();
+		assertThat(registry.get()).isSameAs(first);
+		assertThat(registry.refresh()).isSameAs(first);
+
+		write(cardsFile, "[{\"id\": \"CS2_032\", \"dbfId\": 457}]", 2000);
+		CardsList second = registry.refresh();
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.findDbCard("CS2_029")).isNull();
+		assertThat(registry.get().dbCardFromDbfId(457).getId()).isEqualTo("CS2_032");
+	}
+
+	@Test
+	public void keeps_previous_cards_when_new_file_is_invalid() throws Exception {
+		Path cardsFile = folder.newFile("cards.json").toPath();
+		write(cardsFile, "[{\"id\": \"CS2_029\", \"dbfId\": 315}]", 1000);
+		CardsListRegistry registry = new CardsListRegistry(cardsFile);
+		CardsList first = registry.get();
+
+		write(cardsFile, "[{\"id\": \"CS2_0", 2000);
+		assertThat(registry.refresh()).isSameAs(first);
+	}
+
+	@Test
+	public void keeps_previous_cards_while_file_is_missing() throws Exception {
+		Path cardsFile = folder.newFile("cards.json").toPath();
+		write(cardsFile, "[{\"id\": \"CS2_029\", \"dbfId\": 315}]", 1000);
+		CardsListRegistry registry = new CardsListRegistry(cardsFile);
+		CardsList first = registry.get();
+
+		Files.delete(cardsFile);
+		assertThat(registry.refresh()).isSameAs(first);
+	}
+
+	@Test
+	public void polls_the_file_for_changes() throws Exception {
+		Path cardsFile = folder.newFile("cards.json").toPath();
+		write(cardsFile, "[{\"id\": \"CS2_029\", \"dbfId\": 315}]", 1000);
+		CardsListRegistry registry = new CardsListRegistry(cardsFile);
+		CardsList first = registry.get();
+
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		try {
+			registry.refreshEvery(scheduler, 10, TimeUnit.MILLISECONDS);
+			write(cardsFile, "[{\"id\": \"CS2_032\", \"dbfId\": 457}]", 2000);
+			long deadline = System.currentTimeMillis() + 5000;
+			while (registry.get() == first && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertThat(registry.get().findDbCard("CS2_032")).isNotNull();
+		}
+		finally {
+			scheduler.shutdownNow();
+		}
+	}
+
+	private static void write(Path file, String content, long lastModified) throws Exception {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+	}
+}
@@ -0,0 +1,80 @@
+package com.zerotoheroes.hsgameparser.db;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestCardsSnapshot implements WithAssertions {
+
+	private static final String CARDS = "[" +
+			"{\"id\": \"EX1_287\", \"dbfId\": 1658, \"cost\": 3, \"name\": \"Counterspell\", \"playerClass\": \"MAGE\", " +
+			"\"type\": \"Spell\", \"rarity\": \"RARE\", \"set\": \"EXPERT1\", \"collectible\": true, " +
+			"\"text\": \"<b>Secret:</b> When your opponent casts a spell, <b>Counter</b> it.\", \"mechanics\": [\"SECRET\"]}," +
+			"{\"id\": \"EX1_287e\", \"dbfId\": 1659, \"name\": \"Déjà vu\", \"set\": \"EXPERT1\", \"mechanics\": []}," +
+			"{\"id\": \"CS2_231\", \"dbfId\": 1747, \"cost\": 0, \"attack\": 1, \"health\": 1, \"type\": \"Minion\"}" +
+			"]";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void reads_back_written_cards() throws Exception {
+		List<DbCard> cards = CardsList.readCards(stream(CARDS), card -> true);
+		Path snapshot = folder.getRoot().toPath().resolve("cards.snapshot");
+
+		CardsSnapshot.write(cards, 42, snapshot);
+
+		assertThat(CardsSnapshot.read(snapshot, 42)).isEqualTo(cards);
+		assertThat(CardsSnapshot.read(snapshot, 43)).isNull();
+		assertThat(CardsSnapshot.read(folder.getRoot().toPath().resolve("missing"), 42)).isNull();
+	}
+
+	@Test
+	public void rebuilds_stale_snapshot() throws Exception {
+		Path cardsFile = folder.newFile("cards.json").toPath();
+		Path snapshot = folder.getRoot().toPath().resolve("cards.snapshot");
+		Files.write(cardsFile, CARDS.getBytes(StandardCharsets.UTF_8));
+
+		CardsList fromJson = CardsList.createFromSnapshot(cardsFile, snapshot);
+		assertThat(Files.exists(snapshot)).isTrue();
+		CardsList fromSnapshot = CardsList.createFromSnapshot(cardsFile, snapshot);
+		assertThat(fromSnapshot.getDbCards()).isEqualTo(fromJson.getDbCards());
+
+		Files.write(cardsFile, "[{\"id\": \"CS2_029\", \"dbfId\": 315}]".getBytes(StandardCharsets.UTF_8));
+		CardsList updated = CardsList.createFromSnapshot(cardsFile, snapshot);
+		assertThat(updated.getDbCards()).extracting(DbCard::getId).isEqualTo(Arrays.asList("CS2_029"));
+	}
+
+	@Test
+	public void maps_snapshot_cards() throws Exception {
+		List<DbCard> cards = CardsList.readCards(stream(CARDS), card -> true);
+		Path snapshot = folder.getRoot().toPath().resolve("cards.snapshot");
+		CardsSnapshot.write(cards, 42, snapshot);
+
+		MappedCardsList mapped = MappedCardsList.open(snapshot);
+
+		assertThat(mapped.getDbCards()).isEqualTo(cards);
+		assertThat(cards).isEqualTo(mapped.getDbCards());
+		assertThat(mapped.findDbCard("EX1_287e").getName()).isEqualTo("Déjà vu");
+		assertThat(mapped.findDbCardIgnoreCase("ex1_287").getMechanics()).isEqualTo(Arrays.asList("SECRET"));
+		assertThat(mapped.dbCardFromDbfId(1747).getAttack()).isEqualTo(1);
+		assertThat(mapped.findDbCard("unknown")).isNull();
+
+		// Changing a card doesn't change the snapshot
+		mapped.findDbCard("CS2_231").setCost(2);
+		assertThat(mapped.findDbCard("CS2_231").getCost()).isEqualTo(0);
+	}
+
+	private static InputStream stream(String json) {
+		return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+	}
+}
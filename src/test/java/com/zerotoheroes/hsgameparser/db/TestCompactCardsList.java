@@ -0,0 +1,82 @@
+package com.zerotoheroes.hsgameparser.db;
+
+import com.zerotoheroes.hsgameparser.metadata.GameParser;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.zerotoheroes.hsgameparser.db.TestCardsList.card;
+
+public class TestCompactCardsList implements WithAssertions {
+
+	private CardsList cardsList;
+	private CompactCardsList compactCardsList;
+
+	@Before
+	public void setup() {
+		DbCard secret = card("EX1_287", 1658, "Mage", "Spell");
+		secret.setSet("EXPERT1");
+		secret.setRarity("EPIC");
+		secret.setCollectible(true);
+		secret.setMechanics(Arrays.asList("SECRET"));
+		secret.setName("Counterspell");
+		secret.setText("<b>Secret:</b> When your opponent casts a spell, <b>Counter</b> it.");
+		secret.setCost(3);
+		cardsList = new CardsList(Arrays.asList(
+				card("HERO_09", 813, "Priest", "Hero"),
+				secret,
+				card("CS2_029", 315, "Mage", "Spell"),
+				card("CS2_029", 9999, "Neutral", "Minion")));
+		compactCardsList = CompactCardsList.of(cardsList);
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	public void parsers_expose_any_cards_list() {
+		GameParser parser = new GameParser(cardsList);
+		assertThat(parser.getCardsList()).isSameAs(cardsList);
+		assertThat(parser.getCards()).isSameAs(cardsList);
+
+		GameParser compactParser = new GameParser(compactCardsList);
+		assertThat(compactParser.getCards()).isSameAs(compactCardsList);
+		assertThatThrownBy(compactParser::getCardsList).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void views_are_equal_to_original_cards() {
+		assertThat(compactCardsList.getDbCards()).isEqualTo(cardsList.getDbCards());
+	}
+
+	@Test
+	public void lookups_match_indexed_cards_list() {
+		for (String id : Arrays.asList("HERO_09", "EX1_287", "CS2_029", "cs2_029", "unknown")) {
+			assertThat(compactCardsList.findDbCard(id)).isEqualTo(cardsList.findDbCard(id));
+			assertThat(compactCardsList.findDbCardIgnoreCase(id)).isEqualTo(cardsList.findDbCardIgnoreCase(id));
+		}
+		for (int dbfId : new int[] { 813, 1658, 315, 9999, 1 }) {
+			assertThat(compactCardsList.dbCardFromDbfId(dbfId)).isEqualTo(cardsList.dbCardFromDbfId(dbfId));
+		}
+	}
+
+	@Test
+	public void first_card_wins_among_duplicates() {
+		// Enough duplicates for the sort to really move them around
+		List<DbCard> cards = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			cards.add(card(i % 2 == 0 ? "CS2_029" : "cs2_029", 1000 - i % 3, "Mage", "Spell"));
+			cards.get(i).setName("card " + i);
+		}
+		CompactCardsList compact = CompactCardsList.of(new CardsList(cards));
+
+		assertThat(compact.findDbCard("CS2_029").getName()).isEqualTo("card 0");
+		assertThat(compact.findDbCard("cs2_029").getName()).isEqualTo("card 1");
+		assertThat(compact.findDbCardIgnoreCase("Cs2_029").getName()).isEqualTo("card 0");
+		assertThat(compact.dbCardFromDbfId(1000).getName()).isEqualTo("card 0");
+		assertThat(compact.dbCardFromDbfId(999).getName()).isEqualTo("card 1");
+		assertThat(compact.dbCardFromDbfId(998).getName()).isEqualTo("card 2");
+	}
+}
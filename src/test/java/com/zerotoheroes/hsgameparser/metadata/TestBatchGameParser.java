@@ -0,0 +1,79 @@
+package com.zerotoheroes.hsgameparser.metadata;
+
+import com.zerotoheroes.hsgameparser.GameLoader;
+import com.zerotoheroes.hsgameparser.db.CardsListRegistry;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class TestBatchGameParser implements WithAssertions {
+
+	private final GameLoader gameLoader = new GameLoader();
+
+	private final GameParser gameParser = new GameParser(CardsListRegistry.bundled());
+
+	@Test
+	public void parses_batch_in_order_with_failures() throws Exception {
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			BatchGameParser batchParser = new BatchGameParser(gameParser, pool, 2);
+			List<ReplaySource> sources = Arrays.asList(
+					ReplaySource.of(gameLoader.path("class detection.xml"), null),
+					ReplaySource.of("empty", () -> new ByteArrayInputStream(
+							"<HSReplay><Game><GameEntity id=\"1\"/></Game></HSReplay>".getBytes(StandardCharsets.UTF_8)), null),
+					ReplaySource.of("battlegrounds", gameLoader.load("bugparsing/battlegrounds.xml"), "battlegrounds"),
+					ReplaySource.of("broken", () -> new ByteArrayInputStream(new byte[] { '<' }), null));
+
+			List<MetaDataResult> results = batchParser.parse(sources);
+
+			assertThat(results).extracting(MetaDataResult::getSource).isEqualTo(sources);
+			assertThat(results.get(0).isSuccess()).isTrue();
+			assertThat(results.get(0).getMetaData().getPlayerClass()).isEqualTo("priest");
+			assertThat(results.get(1).isInvalidReplay()).isTrue();
+			assertThat(results.get(2).getMetaData().getAdditionalResult()).isEqualTo("6");
+			assertThat(results.get(3).isSuccess()).isFalse();
+			assertThat(results.get(3).isInvalidReplay()).isFalse();
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void bounds_replays_in_flight() throws Exception {
+		ForkJoinPool pool = new ForkJoinPool(8);
+		try {
+			BatchGameParser batchParser = new BatchGameParser(gameParser, pool, 3);
+			AtomicInteger opened = new AtomicInteger();
+			AtomicInteger maxOpened = new AtomicInteger();
+			List<MetaDataResult> results = Collections.synchronizedList(new ArrayList<>());
+
+			batchParser.parse(
+					IntStream.range(0, 20).mapToObj(i -> ReplaySource.of("replay " + i, () -> {
+						maxOpened.accumulateAndGet(opened.incrementAndGet(), Math::max);
+						return gameLoader.stream("worgen otk 32 dmg.xml");
+					}, null)),
+					result -> {
+						opened.decrementAndGet();
+						results.add(result);
+					});
+
+			assertThat(results).hasSize(20);
+			assertThat(results.stream().filter(MetaDataResult::isSuccess).collect(Collectors.toList())).hasSize(20);
+			assertThat(maxOpened.get()).isLessThanOrEqualTo(3);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+}
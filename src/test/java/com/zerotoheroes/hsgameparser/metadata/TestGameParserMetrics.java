@@ -0,0 +1,94 @@
+package com.zerotoheroes.hsgameparser.metadata;
+
+import com.zerotoheroes.hsgameentities.replaydata.GameData;
+import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
+import com.zerotoheroes.hsgameparser.GameLoader;
+import com.zerotoheroes.hsgameparser.SyntheticReplay;
+import com.zerotoheroes.hsgameparser.db.CardsListRegistry;
+import com.zerotoheroes.hsgameparser.replay.ReplayStreamReader;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestGameParserMetrics implements WithAssertions {
+
+	private final GameLoader gameLoader = new GameLoader();
+
+	private final RecordedMetrics metrics = new RecordedMetrics();
+
+	private final GameParser gameParser = new GameParser(CardsListRegistry.bundled(), metrics);
+
+	@Test
+	public void records_every_phase_and_what_was_read() throws Exception {
+		try (InputStream stream = gameLoader.stream("bugparsing/battlegrounds.xml")) {
+			gameParser.getMetaData(stream, "battlegrounds");
+		}
+
+		assertThat(metrics.phases).containsOnlyKeys(ParsePhase.values());
+		// The phases are declared in the order they run
+		assertThat(metrics.order).isEqualTo(Arrays.asList(ParsePhase.values()));
+		assertThat(metrics.phases.values()).allMatch(duration -> duration >= 0);
+
+		List<GameData> data = new ArrayList<>();
+		try (InputStream stream = gameLoader.stream("bugparsing/battlegrounds.xml")) {
+			new ReplayStreamReader().read(stream, data::add);
+		}
+		assertThat(metrics.tagChanges).isEqualTo(data.stream().filter(d -> d instanceof TagChange).count());
+		assertThat(metrics.entities).isEqualTo(data.stream().filter(d -> d instanceof BaseEntity).count());
+		assertThat(metrics.failures).isEmpty();
+	}
+
+	@Test
+	public void records_failures_by_reason() throws Exception {
+		SyntheticReplay noTurns = SyntheticReplay.builder().turns(0).build();
+
+		assertThatThrownBy(() -> gameParser.getMetaData(noTurns.stream(), null))
+				.isInstanceOf(InvalidGameReplayException.class)
+				.hasFieldOrPropertyWithValue("reason", InvalidGameReplayException.Reason.NO_TURNS);
+		assertThat(metrics.failures).isEqualTo(Collections.singletonList(InvalidGameReplayException.Reason.NO_TURNS));
+		assertThat(metrics.phases).containsOnlyKeys(ParsePhase.READ);
+
+		assertThatThrownBy(() -> gameParser.startLiveGame(null).getMetaData())
+				.isInstanceOf(InvalidGameReplayException.class)
+				.hasFieldOrPropertyWithValue("reason", InvalidGameReplayException.Reason.NO_GAME_ENTITY);
+		assertThat(metrics.failures).hasSize(2);
+	}
+
+	private static class RecordedMetrics implements GameParserMetrics {
+
+		private final Map<ParsePhase, Long> phases = new EnumMap<>(ParsePhase.class);
+
+		private final List<ParsePhase> order = new ArrayList<>();
+
+		private long tagChanges;
+
+		private long entities;
+
+		private final List<InvalidGameReplayException.Reason> failures = new ArrayList<>();
+
+		@Override
+		public void phase(ParsePhase phase, long durationInNanos) {
+			phases.merge(phase, durationInNanos, Long::sum);
+			order.add(phase);
+		}
+
+		@Override
+		public void gameRead(int tagChanges, int entities) {
+			this.tagChanges += tagChanges;
+			this.entities += entities;
+		}
+
+		@Override
+		public void failure(InvalidGameReplayException.Reason reason) {
+			failures.add(reason);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.zerotoheroes.hsgameparser.metadata;
+
+import com.zerotoheroes.hsgameentities.replaydata.GameData;
+import com.zerotoheroes.hsgameparser.GameLoader;
+import com.zerotoheroes.hsgameparser.amazingplays.CompositeGameEvents;
+import com.zerotoheroes.hsgameparser.amazingplays.GameHighlight;
+import com.zerotoheroes.hsgameparser.amazingplays.reader.ReplayReader;
+import com.zerotoheroes.hsgameparser.amazingplays.rules.AbstractGameEventsAdapter;
+import com.zerotoheroes.hsgameparser.amazingplays.rules.RuleFactory;
+import com.zerotoheroes.hsgameparser.db.CardsListRegistry;
+import com.zerotoheroes.hsgameparser.replay.ReplayStreamReader;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class TestLiveGame implements WithAssertions {
+
+	private final GameLoader gameLoader = new GameLoader();
+
+	private final GameParser gameParser = new GameParser(CardsListRegistry.bundled());
+
+	@Test
+	public void follows_game_as_it_is_played() throws Exception {
+		LiveGame liveGame = gameParser.startLiveGame(null);
+		assertThat(liveGame.getPartialMetaData().getPlayerName()).isNull();
+
+		List<GameHighlight> highlights = new ArrayList<>();
+		// Metadata as seen when each turn starts
+		List<GameMetaData> turnMetaData = new ArrayList<>();
+		AbstractGameEventsAdapter turns = new AbstractGameEventsAdapter(highlights::add) {
+			@Override
+			public void turnStart(int turnNumber) {
+				turnMetaData.add(liveGame.getPartialMetaData());
+			}
+		};
+		Consumer<GameData> liveReplay = new ReplayReader().startLiveGame(
+				new CompositeGameEvents(Arrays.asList(new RuleFactory(30).create(highlights::add), turns)));
+
+		try (InputStream stream = gameLoader.stream("worgen otk 32 dmg.xml")) {
+			new ReplayStreamReader().read(stream, liveGame.andThen(liveReplay));
+		}
+
+		assertThat(turnMetaData).isNotEmpty();
+		for (int turn = 1; turn <= turnMetaData.size(); turn++) {
+			GameMetaData metaData = turnMetaData.get(turn - 1);
+			assertThat(metaData.getNumberOfTurns()).isEqualTo((turn + 1) / 2);
+			assertThat(metaData.getResult()).isEqualTo("unknown");
+			assertThat(metaData.getPlayerName()).isNotNull();
+		}
+		assertThat(highlights).extracting("data").contains("31");
+
+		GameMetaData expected;
+		try (InputStream stream = gameLoader.stream("worgen otk 32 dmg.xml")) {
+			expected = gameParser.getMetaData(stream, null);
+		}
+		assertThat(liveGame.getMetaData()).isEqualTo(expected);
+		assertThat(liveGame.getPartialMetaData()).isEqualTo(expected);
+	}
+
+	@Test
+	public void incomplete_game_is_not_a_replay() {
+		LiveGame liveGame = gameParser.startLiveGame(null);
+		assertThatThrownBy(liveGame::getMetaData).isInstanceOf(InvalidGameReplayException.class);
+		assertThat(liveGame.getPartialMetaData()).isEqualTo(new GameMetaData());
+	}
+}
@@ -6,6 +6,8 @@ import com.zerotoheroes.hsgameparser.db.CardsList;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.InputStream;
+
 import static org.junit.Assert.assertEquals;
 
 public class TestParseClasses {
@@ -25,6 +27,17 @@ public class TestParseClasses {
 		checkMeta("class detection.xml", "priest", "shaman");
 	}
 
+	@Test
+	public void testParseStreamedClasses() throws Exception {
+
+		try (InputStream stream = gameLoader.stream("class detection.xml")) {
+			GameMetaData metaData = gameParser.getMetaData(stream, null);
+
+			assertEquals("incorrect player class", "priest", metaData.getPlayerClass());
+			assertEquals("incorrect opponent class", "shaman", metaData.getOpponentClass());
+		}
+	}
+
 	private void checkMeta(String fileName, String playerClass, String opponentClass) throws Exception {
 
 		HearthstoneReplay replay = gameLoader.load(fileName);
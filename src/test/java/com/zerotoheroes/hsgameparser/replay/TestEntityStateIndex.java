@@ -0,0 +1,107 @@
+package com.zerotoheroes.hsgameparser.replay;
+
+import com.zerotoheroes.hsgameentities.enums.GameTag;
+import com.zerotoheroes.hsgameentities.replaydata.entities.FullEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ShowEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.Tag;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
+import com.zerotoheroes.hsgameparser.GameLoader;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TestEntityStateIndex implements WithAssertions {
+
+	private static final int DAMAGE = GameTag.DAMAGE.getIntValue();
+	private static final int ZONE = GameTag.ZONE.getIntValue();
+
+	@Test
+	public void tracks_initial_and_changed_values() {
+		EntityStateIndex state = new EntityStateIndex();
+		FullEntity minion = new FullEntity("ts", "EX1_001", 4, Arrays.asList(tag(ZONE, 1), tag(DAMAGE, 0)));
+		state.read(minion);
+		// Enough keys and events to resize the tables
+		for (int i = 0; i < 5_000; i++) {
+			state.read(new TagChange(1_000 + i % 700, DAMAGE, i));
+		}
+		state.read(new TagChange(4, DAMAGE, 2));
+		state.read(new ShowEntity("ts", "EX1_001", 4, Collections.singletonList(tag(DAMAGE, 3))));
+		state.read(new TagChange(4, ZONE, 4));
+
+		assertThat(state.getEntity(4)).isSameAs(minion);
+		assertThat(state.getEntity(5)).isNull();
+		assertThat(state.getEntity(100_000)).isNull();
+		assertThat(state.current(4, DAMAGE, -1)).isEqualTo(3);
+		assertThat(state.first(4, DAMAGE, -1)).isEqualTo(0);
+		assertThat(state.initial(4, ZONE, -1)).isEqualTo(1);
+		assertThat(state.current(4, ZONE, -1)).isEqualTo(4);
+		assertThat(state.history(4, DAMAGE)).containsExactly(0, 2, 3);
+		assertThat(state.history(1_003, DAMAGE)).hasSize(8).startsWith(3, 703);
+		assertThat(state.current(1_699, DAMAGE, -1)).isEqualTo(4_899);
+
+		// Missing tags
+		assertThat(state.current(4, GameTag.ARMOR.getIntValue(), -1)).isEqualTo(-1);
+		assertThat(state.history(5, DAMAGE)).isEmpty();
+		assertThat(state.initial(1_000, DAMAGE, -1)).isEqualTo(-1);
+		assertThat(state.first(1_000, DAMAGE, -1)).isEqualTo(0);
+
+		// Events walk a single tag, in reading order
+		int last = state.lastEvent(4, DAMAGE);
+		assertThat(state.eventKind(last)).isEqualTo(EntityStateIndex.REVEAL);
+		int previous = state.previousEvent(last);
+		assertThat(state.eventKind(previous)).isEqualTo(EntityStateIndex.CHANGE);
+		assertThat(state.eventValue(previous)).isEqualTo(2);
+		assertThat(state.nextEvent(previous)).isEqualTo(last);
+		assertThat(state.nextEvent(last)).isEqualTo(-1);
+		assertThat(state.eventKind(state.firstEvent(4, DAMAGE))).isEqualTo(EntityStateIndex.INITIAL);
+		assertThat(state.lastEvent(4, ZONE)).isGreaterThan(last);
+	}
+
+	@Test
+	public void only_keeps_tracked_tags() {
+		EntityStateIndex state = EntityStateIndex.tracking(ZONE);
+		FullEntity minion = new FullEntity("ts", "EX1_001", 4, Arrays.asList(tag(ZONE, 1), tag(DAMAGE, 0)));
+		state.read(minion);
+		state.read(new TagChange(4, DAMAGE, 2));
+		state.read(new TagChange(4, ZONE, 3));
+
+		assertThat(state.getEntity(4)).isSameAs(minion);
+		assertThat(state.isTracked(DAMAGE)).isFalse();
+		assertThat(state.current(4, DAMAGE, -1)).isEqualTo(-1);
+		assertThat(state.history(4, ZONE)).containsExactly(1, 3);
+		// The stream itself only holds the tracked tags
+		assertThat(state.size()).isEqualTo(2);
+		assertThat(state.lastEvent(4, ZONE)).isEqualTo(1);
+
+		EntityStateIndex entitiesOnly = EntityStateIndex.tracking();
+		entitiesOnly.read(minion);
+		assertThat(entitiesOnly.getEntity(4)).isSameAs(minion);
+		assertThat(entitiesOnly.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void follows_replay_state() throws Exception {
+		EntityStateIndex state = new EntityStateIndex();
+		try (InputStream stream = new GameLoader().stream("worgen otk 32 dmg.xml")) {
+			new ReplayStreamReader().read(stream, state::read);
+		}
+
+		int[] turns = state.history(1, GameTag.TURN.getIntValue());
+		assertThat(turns).isNotEmpty();
+		assertThat(turns[0]).isEqualTo(1);
+		assertThat(state.current(1, GameTag.TURN.getIntValue(), -1)).isEqualTo(turns[turns.length - 1]);
+		for (int i = 1; i < turns.length; i++) {
+			assertThat(turns[i]).isEqualTo(turns[i - 1] + 1);
+		}
+	}
+
+	private static Tag tag(int name, int value) {
+		Tag tag = new Tag();
+		tag.setName(name);
+		tag.setValue(value);
+		return tag;
+	}
+}
@@ -0,0 +1,94 @@
+package com.zerotoheroes.hsgameparser.replay;
+
+import com.zerotoheroes.hsgameentities.enums.GameTag;
+import com.zerotoheroes.hsgameentities.replaydata.entities.FullEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
+import com.zerotoheroes.hsgameparser.GameLoader;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TestGameStateRecorder implements WithAssertions {
+
+	@Test
+	public void snapshots_state_at_each_turn() throws Exception {
+		GameStateRecorder recorder = new GameStateRecorder();
+		EntityStateIndex state = new EntityStateIndex();
+		// Expected values, taken from the index when each turn starts
+		List<int[][]> expected = new ArrayList<>();
+		try (InputStream stream = new GameLoader().stream("worgen otk 32 dmg.xml")) {
+			new ReplayStreamReader().read(stream, data -> {
+				recorder.read(data);
+				state.read(data);
+				if (data instanceof TagChange && ((TagChange) data).getEntity() == 1
+						&& ((TagChange) data).getName() == GameTag.TURN.getIntValue()) {
+					expected.add(currentState(state, recorder.getSnapshots().get(recorder.getSnapshots().size() - 1)));
+				}
+			});
+		}
+
+		List<GameStateSnapshot> snapshots = recorder.getSnapshots();
+		assertThat(snapshots).hasSize(expected.size()).isNotEmpty();
+		for (int i = 0; i < snapshots.size(); i++) {
+			GameStateSnapshot snapshot = snapshots.get(i);
+			assertThat(snapshot.getTurn()).isEqualTo(i + 1);
+			assertThat(recorder.getSnapshot(i + 1)).isSameAs(snapshot);
+			int[][] values = expected.get(i);
+			int[] ids = snapshot.getEntityIds();
+			for (int j = 0; j < ids.length; j++) {
+				assertThat(snapshotValues(snapshot, ids[j])).as("entity " + ids[j] + " at turn " + (i + 1)).containsExactly(values[j]);
+			}
+		}
+		assertThat(recorder.getSnapshot(0)).isNull();
+		assertThat(recorder.getSnapshot(snapshots.size() + 1)).isNull();
+
+		// Earlier snapshots don't see what happened after them
+		GameStateSnapshot first = snapshots.get(0);
+		GameStateSnapshot last = snapshots.get(snapshots.size() - 1);
+		int lastEntity = last.getEntityIds()[last.getEntityIds().length - 1];
+		assertThat(first.contains(lastEntity)).isFalse();
+		assertThat(first.getZone(lastEntity)).isEqualTo(0);
+	}
+
+	@Test
+	public void shares_unchanged_blocks() {
+		GameStateRecorder recorder = new GameStateRecorder();
+		recorder.read(new FullEntity("ts", "EX1_001", 4, Collections.emptyList()));
+		recorder.read(new FullEntity("ts", "EX1_002", 100, Collections.emptyList()));
+		recorder.read(new TagChange(1, GameTag.TURN.getIntValue(), 1));
+		recorder.read(new TagChange(100, GameTag.DAMAGE.getIntValue(), 3));
+		// Not tracked
+		recorder.read(new TagChange(4, GameTag.EXHAUSTED.getIntValue(), 1));
+		recorder.read(new TagChange(1, GameTag.TURN.getIntValue(), 2));
+
+		GameStateSnapshot turn1 = recorder.getSnapshot(1);
+		GameStateSnapshot turn2 = recorder.getSnapshot(2);
+		assertThat(turn1.getEntityIds()).containsExactly(4, 100);
+		assertThat(turn1.getDamage(100)).isEqualTo(0);
+		assertThat(turn2.getDamage(100)).isEqualTo(3);
+		assertThat(turn2.sharesBlock(turn1, 4)).isTrue();
+		assertThat(turn2.sharesBlock(turn1, 100)).isFalse();
+	}
+
+	private int[][] currentState(EntityStateIndex state, GameStateSnapshot snapshot) {
+		int[] ids = snapshot.getEntityIds();
+		int[][] values = new int[ids.length][];
+		for (int i = 0; i < ids.length; i++) {
+			assertThat(state.getEntity(ids[i])).isNotNull();
+			values[i] = new int[GameStateSnapshot.TRACKED_TAGS.length];
+			for (int t = 0; t < values[i].length; t++) {
+				values[i][t] = state.current(ids[i], GameStateSnapshot.TRACKED_TAGS[t].getIntValue(), 0);
+			}
+		}
+		return values;
+	}
+
+	private static int[] snapshotValues(GameStateSnapshot snapshot, int entity) {
+		return new int[] { snapshot.getZone(entity), snapshot.getController(entity), snapshot.getHealth(entity),
+				snapshot.getDamage(entity), snapshot.getArmor(entity), snapshot.getAttack(entity) };
+	}
+}
@@ -0,0 +1,202 @@
+package com.zerotoheroes.hsgameparser.replay;
+
+import com.zerotoheroes.hsgameentities.replaydata.GameData;
+import com.zerotoheroes.hsgameentities.replaydata.GameHelper;
+import com.zerotoheroes.hsgameentities.replaydata.HearthstoneReplay;
+import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+import com.zerotoheroes.hsgameentities.replaydata.entities.FullEntity;
+import com.zerotoheroes.hsgameentities.replaydata.entities.PlayerEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.Action;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ShowEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.Tag;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
+import com.zerotoheroes.hsgameparser.GameLoader;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TestReplayStreamReader implements WithAssertions {
+
+	private final GameLoader gameLoader = new GameLoader();
+
+	private final ReplayStreamReader reader = new ReplayStreamReader();
+
+	@Test
+	public void streams_same_data_as_converted_replay() throws Exception {
+		for (String xmlName : new String[] {
+				"worgen otk 32 dmg.xml", "class detection.xml", "bugparsing/battlegrounds.xml", "bugparsing/puzzle.xml" }) {
+			HearthstoneReplay replay = gameLoader.load(xmlName);
+			GameHelper helper = new GameHelper();
+			helper.setGame(replay.getGames().get(0));
+			List<GameData> expected = helper.getFlatData();
+
+			List<GameData> streamed = new ArrayList<>();
+			try (InputStream stream = gameLoader.stream(xmlName)) {
+				reader.read(stream, streamed::add);
+			}
+
+			assertThat(streamed).as(xmlName).hasSameSizeAs(expected);
+			for (int i = 0; i < expected.size(); i++) {
+				assertThat(describe(streamed.get(i))).as(xmlName + " at " + i).isEqualTo(describe(expected.get(i)));
+			}
+		}
+	}
+
+	@Test
+	public void emits_built_replay_in_streaming_order() throws Exception {
+		HearthstoneReplay replay = gameLoader.load("worgen otk 32 dmg.xml");
+		GameHelper helper = new GameHelper();
+		helper.setGame(replay.getGames().get(0));
+
+		List<GameData> emitted = new ArrayList<>();
+		reader.read(replay, emitted::add);
+
+		assertThat(emitted).isEqualTo(helper.getFlatData());
+	}
+
+	@Test
+	public void only_built_actions_keep_their_children() throws Exception {
+		String xmlName = "worgen otk 32 dmg.xml";
+		List<Action> built = new ArrayList<>();
+		reader.read(gameLoader.load(xmlName), data -> {
+			if (data instanceof Action) {
+				built.add((Action) data);
+			}
+		});
+		List<Action> streamed = new ArrayList<>();
+		try (InputStream stream = gameLoader.stream(xmlName)) {
+			reader.read(stream, data -> {
+				if (data instanceof Action) {
+					streamed.add((Action) data);
+				}
+			});
+		}
+
+		assertThat(streamed).hasSameSizeAs(built);
+		assertThat(built.stream().anyMatch(action -> !action.getData().isEmpty())).isTrue();
+		assertThat(streamed.stream().allMatch(action -> action.getData().isEmpty())).isTrue();
+	}
+
+	@Test
+	public void streams_from_files_channels_and_buffers() throws Exception {
+		String xmlName = "bugparsing/battlegrounds.xml";
+		List<String> expected = new ArrayList<>();
+		try (InputStream stream = gameLoader.stream(xmlName)) {
+			reader.read(stream, data -> expected.add(describe(data)));
+		}
+
+		List<String> fromPath = new ArrayList<>();
+		reader.read(gameLoader.path(xmlName), data -> fromPath.add(describe(data)));
+		assertThat(fromPath).isEqualTo(expected);
+
+		List<String> fromChannel = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(gameLoader.path(xmlName), StandardOpenOption.READ)) {
+			channel.position(100);
+			reader.read(channel, data -> fromChannel.add(describe(data)));
+		}
+		assertThat(fromChannel).isEqualTo(expected);
+
+		byte[] bytes = Files.readAllBytes(gameLoader.path(xmlName));
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes).flip();
+		List<String> fromBuffer = new ArrayList<>();
+		reader.read(buffer, data -> fromBuffer.add(describe(data)));
+		assertThat(fromBuffer).isEqualTo(expected);
+		assertThat(buffer.position()).isEqualTo(0);
+	}
+
+	@Test
+	public void reads_only_first_game_and_skips_unknown_elements() throws Exception {
+		String xml = "<HSReplay><Game ts=\"10:00:00\">"
+				+ "<Block entity=\"1\" type=\"5\" ts=\"10:00:01\">"
+				+ "<Deck><Card id=\"CS2_029\"/></Deck>"
+				+ "<TagChange entity=\"1\" tag=\"20\" value=\"1\" ts=\"10:00:02\"/>"
+				+ "</Block>"
+				+ "</Game><Game><TagChange entity=\"1\" tag=\"20\" value=\"2\"/></Game></HSReplay>";
+
+		List<GameData> streamed = new ArrayList<>();
+		reader.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), streamed::add);
+
+		assertThat(streamed).hasSize(2);
+		assertThat(((Action) streamed.get(0)).getType()).isEqualTo(5);
+		TagChange tagChange = (TagChange) streamed.get(1);
+		assertThat(tagChange.getValue()).isEqualTo(1);
+		assertThat(tagChange.getTimestamp()).isEqualTo("10:00:02");
+	}
+
+	@Test
+	public void decodes_only_filtered_data() throws Exception {
+		String xmlName = "worgen otk 32 dmg.xml";
+		List<String> all = new ArrayList<>();
+		try (InputStream stream = gameLoader.stream(xmlName)) {
+			reader.read(stream, data -> all.add(describe(data)));
+		}
+		HearthstoneReplay replay = gameLoader.load(xmlName);
+
+		for (GameDataFilter filter : new GameDataFilter[] {
+				GameDataFilter.tagChanges(20), GameDataFilter.tagChanges(20, 18).withEntities(), GameDataFilter.tagChanges() }) {
+			ReplayStreamReader filteredReader = new ReplayStreamReader(filter);
+			List<GameData> expected = new ArrayList<>();
+			try (InputStream stream = gameLoader.stream(xmlName)) {
+				reader.read(stream, data -> {
+					if (filter.accepts(data)) {
+						expected.add(data);
+					}
+				});
+			}
+
+			List<String> filtered = new ArrayList<>();
+			try (InputStream stream = gameLoader.stream(xmlName)) {
+				filteredReader.read(stream, data -> filtered.add(describe(data)));
+			}
+			assertThat(filtered).isEqualTo(expected.stream().map(TestReplayStreamReader::describe).collect(Collectors.toList()));
+			assertThat(filtered.size()).isLessThan(all.size());
+
+			List<String> filteredReplay = new ArrayList<>();
+			filteredReader.read(replay, data -> filteredReplay.add(describe(data)));
+			assertThat(filteredReplay).isEqualTo(filtered);
+		}
+	}
+
+	private static String describe(GameData data) {
+		StringBuilder result = new StringBuilder(data.getClass().getSimpleName()).append(' ').append(data.getTimestamp());
+		if (data instanceof TagChange) {
+			TagChange tagChange = (TagChange) data;
+			result.append(' ').append(tagChange.getEntity()).append(' ').append(tagChange.getName()).append(' ').append(tagChange.getValue());
+		}
+		else if (data instanceof Action) {
+			Action action = (Action) data;
+			result.append(' ').append(action.getEntity()).append(' ').append(action.getType()).append(' ').append(action.getTarget());
+		}
+		else if (data instanceof ShowEntity) {
+			ShowEntity showEntity = (ShowEntity) data;
+			result.append(' ').append(showEntity.getEntity()).append(' ').append(showEntity.getCardId()).append(' ').append(tags(showEntity.getTags()));
+		}
+		else if (data instanceof BaseEntity) {
+			BaseEntity entity = (BaseEntity) data;
+			result.append(' ').append(entity.getId()).append(' ').append(tags(entity.getTags()));
+			if (entity instanceof FullEntity) {
+				result.append(' ').append(((FullEntity) entity).getCardId());
+			}
+			if (entity instanceof PlayerEntity) {
+				PlayerEntity player = (PlayerEntity) entity;
+				result.append(' ').append(player.getName()).append(' ').append(player.getPlayerId()).append(' ').append(player.getAccountHi());
+			}
+		}
+		return result.toString();
+	}
+
+	private static String tags(List<Tag> tags) {
+		return tags.stream().map(tag -> tag.getName() + "=" + tag.getValue()).collect(Collectors.joining(","));
+	}
+}
@@ -0,0 +1,86 @@
+package com.zerotoheroes.hsgameparser.replay;
+
+import com.zerotoheroes.hsgameentities.enums.GameTag;
+import com.zerotoheroes.hsgameentities.replaydata.entities.BaseEntity;
+import com.zerotoheroes.hsgameentities.replaydata.entities.FullEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ChangeEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.ShowEntity;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.Tag;
+import com.zerotoheroes.hsgameentities.replaydata.gameactions.TagChange;
+import com.zerotoheroes.hsgameparser.GameLoader;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TestTagStore implements WithAssertions {
+
+	private static final int TURN = GameTag.TURN.getIntValue();
+	private static final int LEADERBOARD_PLACE = GameTag.PLAYER_LEADERBOARD_PLACE.getIntValue();
+
+	@Test
+	public void keeps_tags_in_reading_order() {
+		TagStore tags = new TagStore();
+		tags.read(new FullEntity("ts", "EX1_001", 4, Arrays.asList(tag(TURN, 0), tag(LEADERBOARD_PLACE, 8))));
+		// Enough tags to grow the arrays
+		for (int turn = 1; turn <= 5_000; turn++) {
+			tags.read(new TagChange(1, TURN, turn));
+			tags.read(new TagChange(2 + turn % 2, LEADERBOARD_PLACE, turn));
+		}
+		tags.read(new ShowEntity("ts", "EX1_001", 4, Collections.singletonList(tag(LEADERBOARD_PLACE, 3))));
+
+		assertThat(tags.size()).isEqualTo(10_003);
+		assertThat(tags.kind(0)).isEqualTo(TagStore.INITIAL);
+		assertThat(tags.kind(2)).isEqualTo(TagStore.CHANGE);
+		assertThat(tags.kind(tags.size() - 1)).isEqualTo(TagStore.REVEAL);
+		assertThat(tags.value(tags.indexOf(1, TURN))).isEqualTo(1);
+		assertThat(tags.value(tags.lastIndexOf(1, TURN))).isEqualTo(5_000);
+		assertThat(tags.value(tags.indexOf(2, LEADERBOARD_PLACE))).isEqualTo(2);
+		assertThat(tags.value(tags.lastIndexOf(3, LEADERBOARD_PLACE))).isEqualTo(4_999);
+		assertThat(tags.value(tags.lastIndexOf(4, LEADERBOARD_PLACE))).isEqualTo(3);
+		assertThat(tags.indexOf(5, TURN)).isEqualTo(-1);
+		assertThat(tags.lastIndexOf(1, LEADERBOARD_PLACE)).isEqualTo(-1);
+
+		int last = tags.lastIndexOfName(LEADERBOARD_PLACE, tags.size() - 2);
+		assertThat(tags.entity(last)).isEqualTo(2);
+		int previous = tags.lastIndexOfName(LEADERBOARD_PLACE, last - 1);
+		assertThat(tags.entity(previous)).isEqualTo(3);
+		assertThat(tags.name(previous)).isEqualTo(LEADERBOARD_PLACE);
+		assertThat(tags.lastIndexOfName(TURN, -1)).isEqualTo(-1);
+	}
+
+	@Test
+	public void holds_every_tag_of_the_replay() throws Exception {
+		TagStore tags = new TagStore();
+		int[] expected = new int[1];
+		try (InputStream stream = new GameLoader().stream("worgen otk 32 dmg.xml")) {
+			new ReplayStreamReader().read(stream, data -> {
+				tags.read(data);
+				if (data instanceof TagChange) {
+					expected[0]++;
+				}
+				else if (data instanceof BaseEntity) {
+					expected[0] += ((BaseEntity) data).getTags().size();
+				}
+				else if (data instanceof ShowEntity) {
+					expected[0] += ((ShowEntity) data).getTags().size();
+				}
+				else if (data instanceof ChangeEntity) {
+					expected[0] += ((ChangeEntity) data).getTags().size();
+				}
+			});
+		}
+
+		assertThat(tags.size()).isEqualTo(expected[0]);
+		assertThat(tags.value(tags.indexOf(1, TURN))).isEqualTo(1);
+	}
+
+	private static Tag tag(int name, int value) {
+		Tag tag = new Tag();
+		tag.setName(name);
+		tag.setValue(value);
+		return tag;
+	}
+}
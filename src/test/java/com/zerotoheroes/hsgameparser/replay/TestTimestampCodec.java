@@ -0,0 +1,61 @@
+package com.zerotoheroes.hsgameparser.replay;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+
+public class TestTimestampCodec implements WithAssertions {
+
+	@Test
+	public void reads_times_of_the_day() {
+		assertThat(TimestampCodec.toMillis("00:00:00.0000000")).isEqualTo(0);
+		assertThat(TimestampCodec.toMillis("08:45:10.0432777")).isEqualTo(((8 * 60 + 45) * 60 + 10) * 1000L);
+		assertThat(TimestampCodec.toMillis("08:45:10")).isEqualTo(((8 * 60 + 45) * 60 + 10) * 1000L);
+		// Past midnight
+		assertThat(TimestampCodec.toMillis("24:00:34.9281554") - TimestampCodec.toMillis("23:43:06.4437307"))
+				.isEqualTo((17 * 60 + 28) * 1000L);
+	}
+
+	@Test
+	public void reads_iso_timestamps() {
+		assertThat(TimestampCodec.toMillis("1970-01-01T00:00:00.000000Z")).isEqualTo(0);
+		assertThat(TimestampCodec.toMillis("1970-01-01T02:00:00.000000+02:00")).isEqualTo(0);
+		assertThat(TimestampCodec.toMillis("2016-10-14T16:07:38.000000-07:00")).isEqualTo(1476486458000L);
+		// The fraction is read as milliseconds, as it always has been
+		assertThat(TimestampCodec.toMillis("2016-10-14T16:07:38.515110-07:00")).isEqualTo(1476486458000L + 515110);
+	}
+
+	@Test
+	public void reads_the_same_durations_as_before() throws Exception {
+		String[][] games = {
+				{ "08:45:10.0432777", "08:48:23.2710041" },
+				{ "23:43:06.4437307", "24:00:34.9281554" },
+				{ "2016-10-14T16:07:38.515110-07:00", "2016-10-14T16:15:21.334758-07:00" },
+				{ "2016-09-09T10:50:18.051491+02:00", "2016-09-09T11:01:27.277569+02:00" },
+				{ "2020-02-28T23:59:59.100000Z", "2020-03-01T00:00:01.900000Z" } };
+		for (String[] game : games) {
+			long duration = TimestampCodec.toMillis(game[1]) - TimestampCodec.toMillis(game[0]);
+			assertThat(duration).as(game[0]).isEqualTo(legacyMillis(game[1]) - legacyMillis(game[0]));
+		}
+	}
+
+	@Test
+	public void rejects_anything_else() {
+		for (String invalid : new String[] { null, "", "abc", "12", "12:30", "12:xx:00", "2016-10-14",
+				"2016-10-14T16:07:38-07:00", "2016-10-14T16:07:38.5", "2016-13-14T16:07:38.5Z",
+				"2016-10-14T16:07:38.5+0700" }) {
+			assertThat(TimestampCodec.toMillis(invalid)).as(String.valueOf(invalid)).isEqualTo(TimestampCodec.INVALID);
+		}
+	}
+
+	// How the timestamps used to be read
+	private static long legacyMillis(String timestamp) throws Exception {
+		try {
+			return new SimpleDateFormat("HH:mm:ss").parse(timestamp).getTime();
+		}
+		catch (java.text.ParseException e) {
+			return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSSSSXXX").parse(timestamp).getTime();
+		}
+	}
+}
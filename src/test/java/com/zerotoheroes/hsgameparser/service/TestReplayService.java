@@ -0,0 +1,149 @@
+package com.zerotoheroes.hsgameparser.service;
+
+import com.zerotoheroes.hsgameparser.GameLoader;
+import com.zerotoheroes.hsgameparser.amazingplays.rules.RuleFactory;
+import com.zerotoheroes.hsgameparser.db.CardsListRegistry;
+import com.zerotoheroes.hsgameparser.metadata.GameMetaData;
+import com.zerotoheroes.hsgameparser.metadata.GameParser;
+import com.zerotoheroes.hsgameparser.metadata.InvalidGameReplayException;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class TestReplayService implements WithAssertions {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final GameLoader gameLoader = new GameLoader();
+
+	private final GameParser gameParser = new GameParser(CardsListRegistry.bundled());
+
+	@Test
+	public void processes_directory_into_sinks() throws Exception {
+		Path directory = folder.newFolder().toPath();
+		Files.copy(gameLoader.path("class detection.xml"), directory.resolve("a.xml"));
+		Files.copy(gameLoader.path("worgen otk 32 dmg.xml"), directory.resolve("b.xml"));
+		Files.write(directory.resolve("c.xml"), "<HSReplay>".getBytes());
+		Files.write(directory.resolve("ignored.txt"), "not a replay".getBytes());
+
+		List<ReplayResult> results = Collections.synchronizedList(new ArrayList<>());
+		try (ReplayService service = new ReplayService(gameParser, new RuleFactory(30), Collections.singletonList(results::add), 2)) {
+			assertThat(service.submitDirectory(directory, null)).isEqualTo(3);
+			service.awaitIdle();
+		}
+
+		assertThat(results).hasSize(3);
+		results.sort((a, b) -> a.getInput().getName().compareTo(b.getInput().getName()));
+		assertThat(results.get(0).getMetaData().getPlayerClass()).isEqualTo("priest");
+		assertThat(results.get(1).getHighlights()).extracting("data").contains("31");
+		assertThat(results.get(2).isSuccess()).isFalse();
+	}
+
+	@Test
+	public void metadata_failures_keep_highlights() throws Exception {
+		GameParser failingParser = new GameParser(CardsListRegistry.bundled()) {
+			@Override
+			public GameMetaData getMetaData(ByteBuffer replayXml, String gameMode) throws InvalidGameReplayException {
+				throw new InvalidGameReplayException("broken");
+			}
+		};
+		List<ReplayResult> results = Collections.synchronizedList(new ArrayList<>());
+		try (ReplayService service = new ReplayService(failingParser, new RuleFactory(30), Collections.singletonList(results::add), 1)) {
+			service.submit(ReplayInput.of(gameLoader.path("worgen otk 32 dmg.xml"), null));
+		}
+
+		assertThat(results).hasSize(1);
+		ReplayResult result = results.get(0);
+		assertThat(result.isSuccess()).isFalse();
+		assertThat(result.getMetaData()).isNull();
+		assertThat(result.getFailure()).isSameAs(result.getMetaDataFailure()).hasMessage("broken");
+		assertThat(result.getHighlightsFailure()).isNull();
+		assertThat(result.getHighlights()).extracting("data").contains("31");
+	}
+
+	@Test
+	public void closed_service_rejects_replays() throws Exception {
+		ReplayService service = new ReplayService(gameParser, new RuleFactory(), Collections.emptyList(), 1);
+		service.close();
+
+		assertThatThrownBy(() -> service.submit(ReplayInput.of(gameLoader.path("class detection.xml"), null)))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void interrupted_close_restores_interrupt_flag() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		ReplayResultSink blockedSink = result -> release.await();
+		ReplayService service = new ReplayService(gameParser, new RuleFactory(), Collections.singletonList(blockedSink), 1);
+		service.submit(ReplayInput.of(gameLoader.path("class detection.xml"), null));
+
+		Thread.currentThread().interrupt();
+		service.close();
+
+		// Also clears the flag for the next tests
+		assertThat(Thread.interrupted()).isTrue();
+		release.countDown();
+	}
+
+	@Test
+	public void slow_sinks_hold_back_intake() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		List<ReplayResult> results = Collections.synchronizedList(new ArrayList<>());
+		ReplayResultSink slowSink = result -> {
+			release.await();
+			results.add(result);
+		};
+		BlockingQueue<ReplayInput> queue = new ArrayBlockingQueue<>(1);
+		AtomicBoolean consumerDone = new AtomicBoolean();
+
+		Thread consumer;
+		try (ReplayService service = new ReplayService(gameParser, new RuleFactory(), Collections.singletonList(slowSink), 2)) {
+			consumer = new Thread(() -> {
+				try {
+					service.consume(queue);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				consumerDone.set(true);
+			});
+			consumer.start();
+
+			for (int i = 0; i < 3; i++) {
+				queue.put(ReplayInput.of("replay " + i, () -> gameLoader.stream("class detection.xml"), null));
+			}
+			// Two replays are waiting for the sink, the third one is taken but can't be submitted, and
+			// the queue is full again
+			assertThat(queue.offer(ReplayInput.of("replay 3", () -> gameLoader.stream("class detection.xml"), null),
+					1, TimeUnit.SECONDS)).isTrue();
+			assertThat(queue.offer(ReplayInput.of("replay 4", () -> gameLoader.stream("class detection.xml"), null),
+					200, TimeUnit.MILLISECONDS)).isFalse();
+			assertThat(results).isEmpty();
+
+			release.countDown();
+			long deadline = System.currentTimeMillis() + 10_000;
+			while (results.size() < 4 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertThat(results).hasSize(4);
+			assertThat(results).allMatch(ReplayResult::isSuccess);
+		}
+		// Closing the service stops the consumer
+		consumer.join(1_000);
+		assertThat(consumerDone.get()).isTrue();
+	}
+}